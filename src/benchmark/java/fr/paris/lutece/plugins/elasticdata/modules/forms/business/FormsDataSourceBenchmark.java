@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache.WorkflowMetadata;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.FormSchema;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.QuestionSchema;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer.CheckBoxResponseValueSerializer;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer.DateResponseValueSerializer;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer.DefaultResponseValueSerializer;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer.NumberResponseValueSerializer;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer.ResponseValueSerializer;
+import fr.paris.lutece.plugins.forms.business.Form;
+import fr.paris.lutece.plugins.forms.business.FormQuestionResponse;
+import fr.paris.lutece.plugins.forms.business.FormResponse;
+import fr.paris.lutece.plugins.forms.business.Question;
+import fr.paris.lutece.plugins.genericattributes.business.Field;
+import fr.paris.lutece.plugins.genericattributes.business.Response;
+import fr.paris.lutece.plugins.workflowcore.business.action.Action;
+import fr.paris.lutece.plugins.workflowcore.business.resource.ResourceHistory;
+import fr.paris.lutece.plugins.workflowcore.business.state.State;
+import fr.paris.lutece.plugins.workflowcore.business.workflow.Workflow;
+
+/**
+ * Benchmarks of the document building of the FormsDataSource, on synthetic in-memory form responses: no database nor Elasticsearch is needed. Run
+ * with the benchmark profile: <code>mvn -P benchmark test-compile exec:exec</code>. The throughput is reported with the allocation rate of the GC
+ * profiler.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class FormsDataSourceBenchmark
+{
+    private static final int ID_FORM = 1;
+    private static final int ID_WORKFLOW = 1;
+    private static final int NB_STATES = 5;
+    private static final int NB_CHECKBOX_CHOICES = 3;
+    private static final long CREATION_DATE = 1_700_000_000_000L;
+    private static final long HISTORY_INTERVAL = 3_600_000L;
+
+    @Param( {
+            "80", "1000", "10000"
+    } )
+    public int responseCount;
+
+    @Param( {
+            "10", "80"
+    } )
+    public int questionCount;
+
+    @Param( {
+            "0", "20"
+    } )
+    public int historyDepth;
+
+    @Param( {
+            "FULL", "SUBSET", "REFERENCE"
+    } )
+    public HistoryResponsesMode historyResponsesMode;
+
+    private FormsDataSource _formsDataSource;
+    private Form _form;
+    private WorkflowMetadata _workflowMetadata;
+    private OptionalQuestionSelection _questionSelection;
+    private FormSchema _schema;
+    private List<FormResponse> _listFormResponse;
+    private Map<Integer, List<FormQuestionResponse>> _mapFormQuestionResponse;
+    private Map<Integer, List<ResourceHistory>> _mapResourceHistory;
+    private List<FormQuestionResponse> _listFormQuestionResponse;
+    private List<ResourceHistory> _listResourceHistory;
+
+    /**
+     * Build the fixtures: a form whose questions cycle through the checkbox, text, number and date entry types, and a workflow whose actions move
+     * the responses through its states
+     */
+    @Setup
+    public void setUp( )
+    {
+        _formsDataSource = new FormsDataSource( );
+
+        _form = new Form( );
+        _form.setId( ID_FORM );
+        _form.setTitle( "Benchmark form" );
+        _form.setIdWorkflow( ID_WORKFLOW );
+
+        Workflow workflow = new Workflow( );
+        workflow.setId( ID_WORKFLOW );
+        workflow.setName( "Benchmark workflow" );
+        List<State> listStates = new ArrayList<>( );
+        List<Action> listActions = new ArrayList<>( );
+        for ( int nIndex = 1; nIndex <= NB_STATES; nIndex++ )
+        {
+            State state = new State( );
+            state.setId( nIndex );
+            state.setName( "State " + nIndex );
+            listStates.add( state );
+            Action action = new Action( );
+            action.setId( nIndex );
+            action.setName( "Action " + nIndex );
+            action.setStateAfter( state );
+            listActions.add( action );
+        }
+        _workflowMetadata = new WorkflowMetadata( workflow.getName( ), listStates, listActions );
+
+        List<OptionalQuestionIndexation> listOptionalQuestion = new ArrayList<>( );
+        List<QuestionSchema> listQuestionSchema = new ArrayList<>( );
+        List<Question> listQuestions = new ArrayList<>( );
+        ResponseValueSerializer [ ] serializers = {
+                new CheckBoxResponseValueSerializer( ), new DefaultResponseValueSerializer( ), new NumberResponseValueSerializer( ),
+                new DateResponseValueSerializer( )
+        };
+        for ( int nIdQuestion = 1; nIdQuestion <= questionCount; nIdQuestion++ )
+        {
+            Question question = new Question( );
+            question.setId( nIdQuestion );
+            question.setTitle( "Question " + nIdQuestion + " of the benchmark form" );
+            listQuestions.add( question );
+
+            OptionalQuestionIndexation optionalQuestion = new OptionalQuestionIndexation( );
+            optionalQuestion.setIdForm( ID_FORM );
+            optionalQuestion.setIdQuestion( nIdQuestion );
+            optionalQuestion.setIndexedInHistory( nIdQuestion % 2 == 0 );
+            listOptionalQuestion.add( optionalQuestion );
+
+            listQuestionSchema.add( new QuestionSchema( nIdQuestion, nIdQuestion + "." + question.getTitle( ), serializers [nIdQuestion % serializers.length] ) );
+        }
+        _questionSelection = new OptionalQuestionSelection( listOptionalQuestion, 1 );
+        _schema = new FormSchema( ID_FORM, 1, listQuestionSchema, Collections.emptyMap( ) );
+
+        _listFormResponse = new ArrayList<>( responseCount );
+        _mapFormQuestionResponse = new HashMap<>( );
+        _mapResourceHistory = new HashMap<>( );
+        int nIdHistory = 0;
+        for ( int nIdFormResponse = 1; nIdFormResponse <= responseCount; nIdFormResponse++ )
+        {
+            FormResponse formResponse = new FormResponse( );
+            formResponse.setId( nIdFormResponse );
+            formResponse.setFormId( ID_FORM );
+            formResponse.setCreation( new Timestamp( CREATION_DATE + nIdFormResponse ) );
+            formResponse.setUpdate( formResponse.getCreation( ) );
+            _listFormResponse.add( formResponse );
+
+            List<FormQuestionResponse> listFormQuestionResponse = new ArrayList<>( questionCount );
+            for ( Question question : listQuestions )
+            {
+                listFormQuestionResponse.add( createFormQuestionResponse( nIdFormResponse, question ) );
+            }
+            _mapFormQuestionResponse.put( nIdFormResponse, listFormQuestionResponse );
+
+            List<ResourceHistory> listResourceHistory = new ArrayList<>( historyDepth );
+            for ( int nStep = 1; nStep <= historyDepth; nStep++ )
+            {
+                ResourceHistory resourceHistory = new ResourceHistory( );
+                resourceHistory.setId( ++nIdHistory );
+                resourceHistory.setIdResource( nIdFormResponse );
+                resourceHistory.setResourceType( FormsDataSource.RESSOURCE_TYPE );
+                resourceHistory.setWorkflow( workflow );
+                resourceHistory.setAction( listActions.get( nStep % NB_STATES ) );
+                resourceHistory.setCreationDate( new Timestamp( CREATION_DATE + nIdFormResponse + nStep * HISTORY_INTERVAL ) );
+                resourceHistory.setUserAccessCode( "admin" );
+                listResourceHistory.add( resourceHistory );
+            }
+            _mapResourceHistory.put( nIdFormResponse, listResourceHistory );
+        }
+
+        // the flat lists of a batch, as loaded from the database, the question responses in no particular order
+        _listFormQuestionResponse = _mapFormQuestionResponse.values( ).stream( ).flatMap( List::stream ).collect( Collectors.toList( ) );
+        _listResourceHistory = _mapResourceHistory.values( ).stream( ).flatMap( List::stream ).collect( Collectors.toList( ) );
+        Collections.shuffle( _listFormQuestionResponse, new Random( 1 ) );
+    }
+
+    /**
+     * Create the responses to a question: several choices for the checkbox questions, a single value otherwise
+     * 
+     * @param nIdFormResponse
+     *            the form response id
+     * @param question
+     *            the question
+     * @return the form question response
+     */
+    private static FormQuestionResponse createFormQuestionResponse( int nIdFormResponse, Question question )
+    {
+        FormQuestionResponse formQuestionResponse = new FormQuestionResponse( );
+        formQuestionResponse.setIdFormResponse( nIdFormResponse );
+        formQuestionResponse.setQuestion( question );
+        List<Response> listResponse = new ArrayList<>( );
+        int nIdQuestion = question.getId( );
+        switch( nIdQuestion % 4 )
+        {
+            case 0:
+                for ( int nChoice = 1; nChoice <= NB_CHECKBOX_CHOICES; nChoice++ )
+                {
+                    listResponse.add( createResponse( nIdQuestion * 10 + nChoice, "Choice " + nChoice ) );
+                }
+                break;
+            case 2:
+                listResponse.add( createResponse( nIdQuestion * 10, String.valueOf( nIdFormResponse % 1000 ) + ",5" ) );
+                break;
+            case 3:
+                listResponse.add( createResponse( nIdQuestion * 10, "2024-01-" + String.format( "%02d", nIdFormResponse % 28 + 1 ) ) );
+                break;
+            default:
+                listResponse.add( createResponse( nIdQuestion * 10, "Free text response " + nIdFormResponse ) );
+                break;
+        }
+        formQuestionResponse.setEntryResponse( listResponse );
+        return formQuestionResponse;
+    }
+
+    /**
+     * Create a response
+     * 
+     * @param nIdField
+     *            the field id
+     * @param strValue
+     *            the response value
+     * @return the response
+     */
+    private static Response createResponse( int nIdField, String strValue )
+    {
+        Field field = new Field( );
+        field.setIdField( nIdField );
+        Response response = new Response( );
+        response.setField( field );
+        response.setResponseValue( strValue );
+        return response;
+    }
+
+    /**
+     * Build all the documents of the form responses
+     * 
+     * @return the documents
+     */
+    @Benchmark
+    public List<FormResponseDataObject> buildFormDocuments( )
+    {
+        return _formsDataSource.buildFormDocuments( _listFormResponse, _mapFormQuestionResponse, _mapResourceHistory, Collections.emptyMap( ), _form,
+                _workflowMetadata, _questionSelection, historyResponsesMode, _schema );
+    }
+
+    /**
+     * Build all the documents of the form responses from the flat lists of the batch: the grouping by form response id is included
+     * 
+     * @return the documents
+     */
+    @Benchmark
+    public List<FormResponseDataObject> buildFormDocumentsFromBatchLists( )
+    {
+        return _formsDataSource.buildFormDocuments( _listFormResponse, FormsDataSource.groupByFormResponse( _listFormQuestionResponse ),
+                FormsDataSource.groupByResource( _listResourceHistory ), Collections.emptyMap( ), _form, _workflowMetadata, _questionSelection,
+                historyResponsesMode, _schema );
+    }
+
+    /**
+     * Group the flat lists of the batch by form response id in a single pass, as the documents are built now
+     * 
+     * @param blackhole
+     *            the blackhole consuming the groups
+     */
+    @Benchmark
+    public void groupBatch( Blackhole blackhole )
+    {
+        blackhole.consume( FormsDataSource.groupByFormResponse( _listFormQuestionResponse ) );
+        blackhole.consume( FormsDataSource.groupByResource( _listResourceHistory ) );
+    }
+
+    /**
+     * Baseline of {@link #groupBatch(Blackhole)}: the flat lists of the batch are filtered for each form response, twice for the history, as the
+     * documents were built before the grouping
+     * 
+     * @param blackhole
+     *            the blackhole consuming the filtered lists
+     */
+    @Benchmark
+    public void filterBatchPerResponse( Blackhole blackhole )
+    {
+        for ( FormResponse formResponse : _listFormResponse )
+        {
+            int nIdFormResponse = formResponse.getId( );
+            List<ResourceHistory> listResourceHistory = _listResourceHistory.stream( )
+                    .filter( resourceHistory -> resourceHistory.getIdResource( ) == nIdFormResponse ).collect( Collectors.toList( ) );
+            blackhole.consume( listResourceHistory.stream( ).filter( resourceHistory -> resourceHistory.getIdResource( ) == nIdFormResponse )
+                    .reduce( ( first, second ) -> second ).orElse( null ) );
+            blackhole.consume( _listFormQuestionResponse.stream( ).filter( formQuestionResponse -> formQuestionResponse.getIdFormResponse( ) == nIdFormResponse )
+                    .collect( Collectors.toList( ) ) );
+        }
+    }
+
+    /**
+     * Build the user responses of the form responses
+     * 
+     * @param blackhole
+     *            the blackhole consuming the documents
+     */
+    @Benchmark
+    public void setUserResponses( Blackhole blackhole )
+    {
+        for ( FormResponse formResponse : _listFormResponse )
+        {
+            FormResponseDataObject formResponseDataObject = new FormResponseDataObject( );
+            FormsDataSource.setUserResponses( formResponseDataObject, _mapFormQuestionResponse.get( formResponse.getId( ) ), _schema );
+            blackhole.consume( formResponseDataObject );
+        }
+    }
+
+    /**
+     * Build the history documents of the form responses
+     * 
+     * @param blackhole
+     *            the blackhole consuming the documents
+     */
+    @Benchmark
+    public void getFormResponseHistory( Blackhole blackhole )
+    {
+        FormResponseDataObject formResponseDataObject = new FormResponseDataObject( );
+        formResponseDataObject.setFormName( _form.getTitle( ) );
+        formResponseDataObject.setFormId( ID_FORM );
+        Map<String, Object> mapUserResponses = Collections.emptyMap( );
+        for ( FormResponse formResponse : _listFormResponse )
+        {
+            formResponseDataObject.setFormResponseId( formResponse.getId( ) );
+            blackhole.consume( _formsDataSource.getFormResponseHistory( formResponseDataObject, mapUserResponses,
+                    _mapResourceHistory.get( formResponse.getId( ) ), formResponse.getCreation( ), _workflowMetadata, 0 ) );
+        }
+    }
+
+    /**
+     * Run the benchmarks with the GC profiler
+     * 
+     * @param args
+     *            the JMH command line options are not used
+     * @throws RunnerException
+     *             if the benchmarks fail
+     */
+    public static void main( String [ ] args ) throws RunnerException
+    {
+        new Runner( new OptionsBuilder( ).include( FormsDataSourceBenchmark.class.getSimpleName( ) ).addProfiler( GCProfiler.class ).build( ) ).run( );
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * This is the business class for the object FailedBatch: a batch of form responses whose indexing has failed during a reindexing, kept to be
+ * retried. The batch is identified by the range of its form response ids.
+ */
+public class FailedBatch implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    // Variables declarations
+    private int _nId;
+    private String _strCheckpointName;
+    private int _nBatchSequence;
+    private int _nFirstIdFormResponse;
+    private int _nLastIdFormResponse;
+    private String _strErrorMessage;
+    private Timestamp _dateFailure;
+
+    /**
+     * Returns the Id
+     * 
+     * @return The Id
+     */
+    public int getId( )
+    {
+        return _nId;
+    }
+
+    /**
+     * Sets the Id
+     * 
+     * @param nId
+     *            The Id
+     */
+    public void setId( int nId )
+    {
+        _nId = nId;
+    }
+
+    /**
+     * Returns the name of the checkpoint of the reindexing
+     * 
+     * @return The checkpoint name
+     */
+    public String getCheckpointName( )
+    {
+        return _strCheckpointName;
+    }
+
+    /**
+     * Sets the name of the checkpoint of the reindexing
+     * 
+     * @param strCheckpointName
+     *            The checkpoint name
+     */
+    public void setCheckpointName( String strCheckpointName )
+    {
+        _strCheckpointName = strCheckpointName;
+    }
+
+    /**
+     * Returns the sequence number of the batch
+     * 
+     * @return The batch sequence number
+     */
+    public int getBatchSequence( )
+    {
+        return _nBatchSequence;
+    }
+
+    /**
+     * Sets the sequence number of the batch
+     * 
+     * @param nBatchSequence
+     *            The batch sequence number
+     */
+    public void setBatchSequence( int nBatchSequence )
+    {
+        _nBatchSequence = nBatchSequence;
+    }
+
+    /**
+     * Returns the id of the first form response of the batch
+     * 
+     * @return The form response id
+     */
+    public int getFirstIdFormResponse( )
+    {
+        return _nFirstIdFormResponse;
+    }
+
+    /**
+     * Sets the id of the first form response of the batch
+     * 
+     * @param nFirstIdFormResponse
+     *            The form response id
+     */
+    public void setFirstIdFormResponse( int nFirstIdFormResponse )
+    {
+        _nFirstIdFormResponse = nFirstIdFormResponse;
+    }
+
+    /**
+     * Returns the id of the last form response of the batch
+     * 
+     * @return The form response id
+     */
+    public int getLastIdFormResponse( )
+    {
+        return _nLastIdFormResponse;
+    }
+
+    /**
+     * Sets the id of the last form response of the batch
+     * 
+     * @param nLastIdFormResponse
+     *            The form response id
+     */
+    public void setLastIdFormResponse( int nLastIdFormResponse )
+    {
+        _nLastIdFormResponse = nLastIdFormResponse;
+    }
+
+    /**
+     * Returns the error message
+     * 
+     * @return The error message
+     */
+    public String getErrorMessage( )
+    {
+        return _strErrorMessage;
+    }
+
+    /**
+     * Sets the error message
+     * 
+     * @param strErrorMessage
+     *            The error message
+     */
+    public void setErrorMessage( String strErrorMessage )
+    {
+        _strErrorMessage = strErrorMessage;
+    }
+
+    /**
+     * Returns the date of the failure
+     * 
+     * @return The failure date
+     */
+    public Timestamp getFailureDate( )
+    {
+        return _dateFailure;
+    }
+
+    /**
+     * Sets the date of the failure
+     * 
+     * @param dateFailure
+     *            The failure date
+     */
+    public void setFailureDate( Timestamp dateFailure )
+    {
+        _dateFailure = dateFailure;
+    }
+}
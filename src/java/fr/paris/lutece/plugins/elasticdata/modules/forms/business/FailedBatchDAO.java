@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * This class provides Data Access methods for FailedBatch objects
+ */
+@ApplicationScoped
+public final class FailedBatchDAO implements IFailedBatchDAO
+{
+    // Constants
+    private static final String SQL_QUERY_INSERT = "INSERT INTO elasticdata_forms_reindex_failed_batch ( checkpoint_name, batch_sequence, first_id_response, last_id_response, error_message, failure_date ) VALUES ( ?, ?, ?, ?, ?, ? ) ";
+    private static final String SQL_QUERY_DELETE = "DELETE FROM elasticdata_forms_reindex_failed_batch WHERE id_failed_batch = ? ";
+    private static final String SQL_QUERY_DELETE_BY_CHECKPOINT_NAME = "DELETE FROM elasticdata_forms_reindex_failed_batch WHERE checkpoint_name = ? ";
+    private static final String SQL_QUERY_SELECT_BY_CHECKPOINT_NAME = "SELECT id_failed_batch, checkpoint_name, batch_sequence, first_id_response, last_id_response, error_message, failure_date "
+            + " FROM elasticdata_forms_reindex_failed_batch WHERE checkpoint_name = ? ORDER BY first_id_response";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insert( FailedBatch failedBatch, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, failedBatch.getCheckpointName( ) );
+            daoUtil.setInt( nIndex++, failedBatch.getBatchSequence( ) );
+            daoUtil.setInt( nIndex++, failedBatch.getFirstIdFormResponse( ) );
+            daoUtil.setInt( nIndex++, failedBatch.getLastIdFormResponse( ) );
+            daoUtil.setString( nIndex++, failedBatch.getErrorMessage( ) );
+            daoUtil.setTimestamp( nIndex, failedBatch.getFailureDate( ) );
+            daoUtil.executeUpdate( );
+            if ( daoUtil.nextGeneratedKey( ) )
+            {
+                failedBatch.setId( daoUtil.getGeneratedKeyInt( 1 ) );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void delete( int nKey, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        {
+            daoUtil.setInt( 1, nKey );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteByCheckpointName( String strCheckpointName, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_BY_CHECKPOINT_NAME, plugin ) )
+        {
+            daoUtil.setString( 1, strCheckpointName );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<FailedBatch> selectByCheckpointName( String strCheckpointName, Plugin plugin )
+    {
+        List<FailedBatch> listFailedBatches = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_BY_CHECKPOINT_NAME, plugin ) )
+        {
+            daoUtil.setString( 1, strCheckpointName );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                FailedBatch failedBatch = new FailedBatch( );
+                int nIndex = 1;
+                failedBatch.setId( daoUtil.getInt( nIndex++ ) );
+                failedBatch.setCheckpointName( daoUtil.getString( nIndex++ ) );
+                failedBatch.setBatchSequence( daoUtil.getInt( nIndex++ ) );
+                failedBatch.setFirstIdFormResponse( daoUtil.getInt( nIndex++ ) );
+                failedBatch.setLastIdFormResponse( daoUtil.getInt( nIndex++ ) );
+                failedBatch.setErrorMessage( daoUtil.getString( nIndex++ ) );
+                failedBatch.setFailureDate( daoUtil.getTimestamp( nIndex ) );
+                listFailedBatches.add( failedBatch );
+            }
+        }
+        return listFailedBatches;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import jakarta.enterprise.inject.spi.CDI;
+
+/**
+ * This class provides instances management methods for the batches whose indexing has failed during a reindexing
+ */
+public final class FailedBatchHome
+{
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 255;
+
+    // Static variable pointed at the DAO instance
+    private static IFailedBatchDAO _dao = CDI.current( ).select( IFailedBatchDAO.class ).get( );
+    private static Plugin _plugin = PluginService.getPlugin( "elasticdata-forms" );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private FailedBatchHome( )
+    {
+    }
+
+    /**
+     * Create a failed batch. The error message is truncated to the size of the column and the failure date is set to the current date.
+     * 
+     * @param failedBatch
+     *            the failed batch
+     * @return the failed batch with its id
+     */
+    public static FailedBatch create( FailedBatch failedBatch )
+    {
+        failedBatch.setErrorMessage( StringUtils.abbreviate( failedBatch.getErrorMessage( ), ERROR_MESSAGE_MAX_LENGTH ) );
+        failedBatch.setFailureDate( new Timestamp( System.currentTimeMillis( ) ) );
+        _dao.insert( failedBatch, _plugin );
+        return failedBatch;
+    }
+
+    /**
+     * Remove a failed batch
+     * 
+     * @param nKey
+     *            the failed batch id
+     */
+    public static void remove( int nKey )
+    {
+        _dao.delete( nKey, _plugin );
+    }
+
+    /**
+     * Remove the failed batches of a reindexing
+     * 
+     * @param strCheckpointName
+     *            the checkpoint name of the reindexing
+     */
+    public static void removeByCheckpointName( String strCheckpointName )
+    {
+        _dao.deleteByCheckpointName( strCheckpointName, _plugin );
+    }
+
+    /**
+     * Returns the failed batches of a reindexing
+     * 
+     * @param strCheckpointName
+     *            the checkpoint name of the reindexing
+     * @return the list of the failed batches, ordered by form response id
+     */
+    public static List<FailedBatch> getFailedBatches( String strCheckpointName )
+    {
+        return _dao.selectByCheckpointName( strCheckpointName, _plugin );
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * This class provides Data Access methods for FormIndexation objects
+ */
+@ApplicationScoped
+public final class FormIndexationDAO implements IFormIndexationDAO
+{
+    // Constants
+    private static final String SQL_QUERY_SELECT = "SELECT id_form, history_responses_mode FROM elasticdata_forms_form_indexation WHERE id_form = ?";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO elasticdata_forms_form_indexation ( id_form, history_responses_mode ) VALUES ( ?, ? ) ";
+    private static final String SQL_QUERY_DELETE = "DELETE FROM elasticdata_forms_form_indexation WHERE id_form = ? ";
+    private static final String SQL_QUERY_UPDATE = "UPDATE elasticdata_forms_form_indexation SET history_responses_mode = ? WHERE id_form = ?";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insert( FormIndexation formIndexation, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, formIndexation.getIdForm( ) );
+            daoUtil.setString( nIndex, formIndexation.getHistoryResponsesMode( ).name( ) );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public FormIndexation load( int nIdForm, Plugin plugin )
+    {
+        FormIndexation formIndexation = null;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                formIndexation = new FormIndexation( );
+                int nIndex = 1;
+                formIndexation.setIdForm( daoUtil.getInt( nIndex++ ) );
+                formIndexation.setHistoryResponsesMode( HistoryResponsesMode.fromName( daoUtil.getString( nIndex ) ) );
+            }
+        }
+        return formIndexation;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void delete( int nIdForm, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void store( FormIndexation formIndexation, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, formIndexation.getHistoryResponsesMode( ).name( ) );
+            daoUtil.setInt( nIndex, formIndexation.getIdForm( ) );
+            daoUtil.executeUpdate( );
+        }
+    }
+}
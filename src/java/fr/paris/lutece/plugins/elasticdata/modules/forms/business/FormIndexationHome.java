@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import jakarta.enterprise.inject.spi.CDI;
+
+/**
+ * This class provides instances management methods (create, find, ...) for FormIndexation objects
+ */
+public final class FormIndexationHome
+{
+    // Static variable pointed at the DAO instance
+    private static IFormIndexationDAO _dao = CDI.current( ).select( IFormIndexationDAO.class ).get( );
+    private static Plugin _plugin = PluginService.getPlugin( "elasticdata-forms" );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private FormIndexationHome( )
+    {
+    }
+
+    /**
+     * Create or update the indexing settings of a form
+     * 
+     * @param formIndexation
+     *            The instance of the FormIndexation which contains the informations to store
+     * @return The instance of formIndexation which has been stored
+     */
+    public static FormIndexation save( FormIndexation formIndexation )
+    {
+        if ( _dao.load( formIndexation.getIdForm( ), _plugin ) == null )
+        {
+            _dao.insert( formIndexation, _plugin );
+        }
+        else
+        {
+            _dao.store( formIndexation, _plugin );
+        }
+        return formIndexation;
+    }
+
+    /**
+     * Remove the indexing settings of a form
+     * 
+     * @param nIdForm
+     *            The form id
+     */
+    public static void remove( int nIdForm )
+    {
+        _dao.delete( nIdForm, _plugin );
+    }
+
+    /**
+     * Returns the indexing settings of a form
+     * 
+     * @param nIdForm
+     *            The form id
+     * @return the settings of the form, or the default settings if the form has none
+     */
+    public static FormIndexation findByFormId( int nIdForm )
+    {
+        FormIndexation formIndexation = _dao.load( nIdForm, _plugin );
+        if ( formIndexation == null )
+        {
+            formIndexation = new FormIndexation( );
+            formIndexation.setIdForm( nIdForm );
+        }
+        return formIndexation;
+    }
+}
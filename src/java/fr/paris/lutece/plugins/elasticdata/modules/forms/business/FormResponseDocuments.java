@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.elasticdata.business.DataObject;
+
+/**
+ * The documents built for a list of form responses, with the records of what they index. The records are stored once the documents have been sent,
+ * so that a failed indexing does not mark the form responses as indexed.
+ */
+public class FormResponseDocuments
+{
+    private final List<DataObject> _listDataObjects;
+    private final List<FormResponseIndexation> _listIndexation;
+
+    /**
+     * Constructor
+     * 
+     * @param listDataObjects
+     *            the documents
+     * @param listIndexation
+     *            the records of what the documents index, only for the form responses whose record changes
+     */
+    public FormResponseDocuments( List<DataObject> listDataObjects, List<FormResponseIndexation> listIndexation )
+    {
+        _listDataObjects = listDataObjects;
+        _listIndexation = listIndexation;
+    }
+
+    /**
+     * Merge the documents of several batches
+     * 
+     * @param listDocuments
+     *            the documents of the batches
+     * @return the merged documents
+     */
+    public static FormResponseDocuments merge( List<FormResponseDocuments> listDocuments )
+    {
+        List<DataObject> listDataObjects = new ArrayList<>( );
+        List<FormResponseIndexation> listIndexation = new ArrayList<>( );
+        for ( FormResponseDocuments documents : listDocuments )
+        {
+            listDataObjects.addAll( documents._listDataObjects );
+            listIndexation.addAll( documents._listIndexation );
+        }
+        return new FormResponseDocuments( listDataObjects, listIndexation );
+    }
+
+    /**
+     * Returns the documents
+     * 
+     * @return the documents
+     */
+    public List<DataObject> getDataObjects( )
+    {
+        return _listDataObjects;
+    }
+
+    /**
+     * Store the records of what the documents index, to be called once the documents have been sent
+     */
+    public void storeIndexation( )
+    {
+        storeIndexation( Collections.emptyList( ) );
+    }
+
+    /**
+     * Store the records of what the documents index, except for some form responses whose documents have not all been indexed
+     * 
+     * @param collectionIdExcluded
+     *            the ids of the form responses whose record must not be stored
+     */
+    public void storeIndexation( Collection<Integer> collectionIdExcluded )
+    {
+        FormResponseIndexationHome.storeAll( _listIndexation.stream( ).filter( indexation -> !collectionIdExcluded.contains( indexation.getIdFormResponse( ) ) )
+                .collect( Collectors.toList( ) ) );
+    }
+}
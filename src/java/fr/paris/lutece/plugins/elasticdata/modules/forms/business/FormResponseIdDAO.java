@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class provides Data Access methods to enumerate the ids of the form responses without loading the responses
+ */
+@ApplicationScoped
+public final class FormResponseIdDAO implements IFormResponseIdDAO
+{
+    // Constants
+    private static final String SQL_QUERY_SELECT_ID_AFTER = "SELECT id_response FROM forms_response WHERE id_response > ? ORDER BY id_response LIMIT ?";
+    private static final String SQL_QUERY_SELECT_ID_AFTER_FILTERED = "SELECT id_response FROM forms_response WHERE id_response > ? %s ORDER BY id_response LIMIT ?";
+    private static final String SQL_QUERY_COUNT_FILTERED = "SELECT COUNT(*) FROM forms_response WHERE 1 = 1 %s";
+    private static final String SQL_FILTER_ID_FORM = " AND id_form = ?";
+    private static final String SQL_FILTER_CREATION_FROM = " AND creation_date >= ?";
+    private static final String SQL_FILTER_CREATION_TO = " AND creation_date < ?";
+    private static final String SQL_FILTER_ID_TO = " AND id_response <= ?";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<Integer> selectIdFormResponsesAfter( int nLastIdFormResponse, int nLimit, Plugin plugin )
+    {
+        List<Integer> listIdFormResponse = new ArrayList<>( nLimit );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID_AFTER, plugin ) )
+        {
+            daoUtil.setInt( 1, nLastIdFormResponse );
+            daoUtil.setInt( 2, nLimit );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listIdFormResponse.add( daoUtil.getInt( 1 ) );
+            }
+        }
+        return listIdFormResponse;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<Integer> selectIdFormResponsesAfter( int nLastIdFormResponse, FormResponseIdFilter filter, int nLimit, Plugin plugin )
+    {
+        List<Integer> listIdFormResponse = new ArrayList<>( nLimit );
+        try ( DAOUtil daoUtil = new DAOUtil( String.format( SQL_QUERY_SELECT_ID_AFTER_FILTERED, getFilterClauses( filter ) ), plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nLastIdFormResponse );
+            nIndex = setFilterValues( daoUtil, filter, nIndex );
+            daoUtil.setInt( nIndex, nLimit );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listIdFormResponse.add( daoUtil.getInt( 1 ) );
+            }
+        }
+        return listIdFormResponse;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int countFormResponses( FormResponseIdFilter filter, Plugin plugin )
+    {
+        int nCount = 0;
+        try ( DAOUtil daoUtil = new DAOUtil( String.format( SQL_QUERY_COUNT_FILTERED, getFilterClauses( filter ) ), plugin ) )
+        {
+            setFilterValues( daoUtil, filter, 1 );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+        }
+        return nCount;
+    }
+
+    /**
+     * Build the SQL clauses of a filter
+     * 
+     * @param filter
+     *            the filter
+     * @return the clauses
+     */
+    private static String getFilterClauses( FormResponseIdFilter filter )
+    {
+        StringBuilder sbClauses = new StringBuilder( );
+        if ( filter.getIdForm( ) > 0 )
+        {
+            sbClauses.append( SQL_FILTER_ID_FORM );
+        }
+        if ( filter.getCreationFrom( ) != null )
+        {
+            sbClauses.append( SQL_FILTER_CREATION_FROM );
+        }
+        if ( filter.getCreationTo( ) != null )
+        {
+            sbClauses.append( SQL_FILTER_CREATION_TO );
+        }
+        if ( filter.getIdFormResponseTo( ) > 0 )
+        {
+            sbClauses.append( SQL_FILTER_ID_TO );
+        }
+        return sbClauses.toString( );
+    }
+
+    /**
+     * Set the values of the clauses of a filter
+     * 
+     * @param daoUtil
+     *            the DAOUtil
+     * @param filter
+     *            the filter
+     * @param nFirstIndex
+     *            the index of the first value
+     * @return the index following the last value
+     */
+    private static int setFilterValues( DAOUtil daoUtil, FormResponseIdFilter filter, int nFirstIndex )
+    {
+        int nIndex = nFirstIndex;
+        if ( filter.getIdForm( ) > 0 )
+        {
+            daoUtil.setInt( nIndex++, filter.getIdForm( ) );
+        }
+        if ( filter.getCreationFrom( ) != null )
+        {
+            daoUtil.setTimestamp( nIndex++, filter.getCreationFrom( ) );
+        }
+        if ( filter.getCreationTo( ) != null )
+        {
+            daoUtil.setTimestamp( nIndex++, filter.getCreationTo( ) );
+        }
+        if ( filter.getIdFormResponseTo( ) > 0 )
+        {
+            daoUtil.setInt( nIndex++, filter.getIdFormResponseTo( ) );
+        }
+        return nIndex;
+    }
+}
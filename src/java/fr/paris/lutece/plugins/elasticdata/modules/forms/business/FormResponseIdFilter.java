@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * Restricts the enumeration of the form response ids to a form, a creation date range and an upper bound of the id. The unset criteria are not
+ * applied.
+ */
+public class FormResponseIdFilter implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private int _nIdForm;
+    private Timestamp _dateCreationFrom;
+    private Timestamp _dateCreationTo;
+    private int _nIdFormResponseTo;
+
+    /**
+     * Returns the form id
+     * 
+     * @return The form id, 0 for all the forms
+     */
+    public int getIdForm( )
+    {
+        return _nIdForm;
+    }
+
+    /**
+     * Sets the form id
+     * 
+     * @param nIdForm
+     *            The form id, 0 for all the forms
+     */
+    public void setIdForm( int nIdForm )
+    {
+        _nIdForm = nIdForm;
+    }
+
+    /**
+     * Returns the lower bound (inclusive) of the creation date
+     * 
+     * @return The lower bound, or null
+     */
+    public Timestamp getCreationFrom( )
+    {
+        return _dateCreationFrom;
+    }
+
+    /**
+     * Sets the lower bound (inclusive) of the creation date
+     * 
+     * @param dateCreationFrom
+     *            The lower bound, or null
+     */
+    public void setCreationFrom( Timestamp dateCreationFrom )
+    {
+        _dateCreationFrom = dateCreationFrom;
+    }
+
+    /**
+     * Returns the upper bound (exclusive) of the creation date
+     * 
+     * @return The upper bound, or null
+     */
+    public Timestamp getCreationTo( )
+    {
+        return _dateCreationTo;
+    }
+
+    /**
+     * Sets the upper bound (exclusive) of the creation date
+     * 
+     * @param dateCreationTo
+     *            The upper bound, or null
+     */
+    public void setCreationTo( Timestamp dateCreationTo )
+    {
+        _dateCreationTo = dateCreationTo;
+    }
+
+    /**
+     * Returns the upper bound (inclusive) of the form response id
+     * 
+     * @return The upper bound, 0 for no bound
+     */
+    public int getIdFormResponseTo( )
+    {
+        return _nIdFormResponseTo;
+    }
+
+    /**
+     * Sets the upper bound (inclusive) of the form response id
+     * 
+     * @param nIdFormResponseTo
+     *            The upper bound, 0 for no bound
+     */
+    public void setIdFormResponseTo( int nIdFormResponseTo )
+    {
+        _nIdFormResponseTo = nIdFormResponseTo;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.plugins.forms.service.FormsPlugin;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import jakarta.enterprise.inject.spi.CDI;
+
+import java.util.List;
+
+/**
+ * This class provides instances management methods for the form response ids. The form response table belongs to the forms plugin, so the queries are
+ * run against its pool.
+ */
+public final class FormResponseIdHome
+{
+    // Static variable pointed at the DAO instance
+    private static IFormResponseIdDAO _dao = CDI.current( ).select( IFormResponseIdDAO.class ).get( );
+    private static Plugin _plugin = PluginService.getPlugin( FormsPlugin.PLUGIN_NAME );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private FormResponseIdHome( )
+    {
+    }
+
+    /**
+     * Load a page of form response ids, ordered by id, starting strictly after the given id
+     * 
+     * @param nLastIdFormResponse
+     *            the last id of the previous page (0 for the first page)
+     * @param nLimit
+     *            the maximum number of ids to load
+     * @return the list of form response ids
+     */
+    public static List<Integer> getIdFormResponsesAfter( int nLastIdFormResponse, int nLimit )
+    {
+        return _dao.selectIdFormResponsesAfter( nLastIdFormResponse, nLimit, _plugin );
+    }
+
+    /**
+     * Load a page of the form response ids matching a filter, ordered by id, starting strictly after the given id
+     * 
+     * @param nLastIdFormResponse
+     *            the last id of the previous page (0 for the first page)
+     * @param filter
+     *            the filter
+     * @param nLimit
+     *            the maximum number of ids to load
+     * @return the list of form response ids
+     */
+    public static List<Integer> getIdFormResponsesAfter( int nLastIdFormResponse, FormResponseIdFilter filter, int nLimit )
+    {
+        return _dao.selectIdFormResponsesAfter( nLastIdFormResponse, filter, nLimit, _plugin );
+    }
+
+    /**
+     * Count the form responses matching a filter
+     * 
+     * @param filter
+     *            the filter
+     * @return the number of form responses
+     */
+    public static int countFormResponses( FormResponseIdFilter filter )
+    {
+        return _dao.countFormResponses( filter, _plugin );
+    }
+}
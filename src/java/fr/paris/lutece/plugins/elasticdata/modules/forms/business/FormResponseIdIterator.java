@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the form response ids page by page, using keyset pagination ( id &gt; last id ORDER BY id LIMIT n ). Only the current page is held in
+ * memory.
+ */
+public class FormResponseIdIterator implements Iterator<List<Integer>>
+{
+    private final int _nPageSize;
+    private final FormResponseIdFilter _filter;
+    private int _nLastIdFormResponse;
+    private List<Integer> _listNextPage;
+    private boolean _bExhausted;
+
+    /**
+     * Constructor
+     * 
+     * @param nPageSize
+     *            the number of ids per page
+     */
+    public FormResponseIdIterator( int nPageSize )
+    {
+        this( nPageSize, null );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param nPageSize
+     *            the number of ids per page
+     * @param filter
+     *            the filter of the form responses, or null for all the form responses
+     */
+    public FormResponseIdIterator( int nPageSize, FormResponseIdFilter filter )
+    {
+        this( nPageSize, filter, 0 );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param nPageSize
+     *            the number of ids per page
+     * @param filter
+     *            the filter of the form responses, or null for all the form responses
+     * @param nLastIdFormResponse
+     *            the id after which the iteration starts, used to resume an interrupted iteration
+     */
+    public FormResponseIdIterator( int nPageSize, FormResponseIdFilter filter, int nLastIdFormResponse )
+    {
+        _nPageSize = nPageSize;
+        _filter = filter;
+        _nLastIdFormResponse = nLastIdFormResponse;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean hasNext( )
+    {
+        if ( _listNextPage == null && !_bExhausted )
+        {
+            List<Integer> listPage = ( _filter == null ) ? FormResponseIdHome.getIdFormResponsesAfter( _nLastIdFormResponse, _nPageSize )
+                    : FormResponseIdHome.getIdFormResponsesAfter( _nLastIdFormResponse, _filter, _nPageSize );
+            if ( listPage.isEmpty( ) )
+            {
+                _bExhausted = true;
+            }
+            else
+            {
+                _nLastIdFormResponse = listPage.get( listPage.size( ) - 1 );
+                _bExhausted = listPage.size( ) < _nPageSize;
+                _listNextPage = listPage;
+            }
+        }
+        return _listNextPage != null;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<Integer> next( )
+    {
+        if ( !hasNext( ) )
+        {
+            throw new NoSuchElementException( );
+        }
+        List<Integer> listPage = _listNextPage;
+        _listNextPage = null;
+        return listPage;
+    }
+}
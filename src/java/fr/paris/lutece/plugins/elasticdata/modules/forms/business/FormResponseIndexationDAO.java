@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class provides Data Access methods for FormResponseIndexation objects
+ */
+@ApplicationScoped
+public final class FormResponseIndexationDAO implements IFormResponseIndexationDAO
+{
+    // Constants
+    private static final String SQL_QUERY_INSERT = "INSERT INTO elasticdata_forms_response_indexation ( id_form_response, id_last_history, response_update_date ) VALUES ( ?, ?, ? ) ";
+    private static final String SQL_QUERY_DELETE_BY_FORM_RESPONSE_IDS = "DELETE FROM elasticdata_forms_response_indexation WHERE id_form_response IN ( %s ) ";
+    private static final String SQL_QUERY_DELETE_ALL = "DELETE FROM elasticdata_forms_response_indexation";
+    private static final String SQL_QUERY_SELECT_BY_FORM_RESPONSE_IDS = "SELECT id_form_response, id_last_history, response_update_date FROM elasticdata_forms_response_indexation WHERE id_form_response IN ( %s ) ";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insertAll( Collection<FormResponseIndexation> listFormResponseIndexation, Plugin plugin )
+    {
+        if ( listFormResponseIndexation.isEmpty( ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin ) )
+        {
+            for ( FormResponseIndexation formResponseIndexation : listFormResponseIndexation )
+            {
+                int nIndex = 1;
+                daoUtil.setInt( nIndex++, formResponseIndexation.getIdFormResponse( ) );
+                daoUtil.setInt( nIndex++, formResponseIndexation.getIdLastHistory( ) );
+                daoUtil.setTimestamp( nIndex, formResponseIndexation.getResponseUpdate( ) );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteByFormResponseIds( Collection<Integer> listIdFormResponse, Plugin plugin )
+    {
+        if ( listIdFormResponse.isEmpty( ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( String.format( SQL_QUERY_DELETE_BY_FORM_RESPONSE_IDS, getPlaceholders( listIdFormResponse.size( ) ) ), plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdFormResponse : listIdFormResponse )
+            {
+                daoUtil.setInt( nIndex++, nIdFormResponse );
+            }
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteAll( Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_ALL, plugin ) )
+        {
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<FormResponseIndexation> selectByFormResponseIds( Collection<Integer> listIdFormResponse, Plugin plugin )
+    {
+        List<FormResponseIndexation> listFormResponseIndexation = new ArrayList<>( );
+        if ( listIdFormResponse.isEmpty( ) )
+        {
+            return listFormResponseIndexation;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( String.format( SQL_QUERY_SELECT_BY_FORM_RESPONSE_IDS, getPlaceholders( listIdFormResponse.size( ) ) ), plugin ) )
+        {
+            int nIndex = 1;
+            for ( Integer nIdFormResponse : listIdFormResponse )
+            {
+                daoUtil.setInt( nIndex++, nIdFormResponse );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                FormResponseIndexation formResponseIndexation = new FormResponseIndexation( );
+                nIndex = 1;
+                formResponseIndexation.setIdFormResponse( daoUtil.getInt( nIndex++ ) );
+                formResponseIndexation.setIdLastHistory( daoUtil.getInt( nIndex++ ) );
+                formResponseIndexation.setResponseUpdate( daoUtil.getTimestamp( nIndex ) );
+                listFormResponseIndexation.add( formResponseIndexation );
+            }
+        }
+        return listFormResponseIndexation;
+    }
+
+    /**
+     * Build the placeholders of an IN clause
+     * 
+     * @param nCount
+     *            the number of values
+     * @return the placeholders
+     */
+    private static String getPlaceholders( int nCount )
+    {
+        return String.join( ",", Collections.nCopies( nCount, "?" ) );
+    }
+}
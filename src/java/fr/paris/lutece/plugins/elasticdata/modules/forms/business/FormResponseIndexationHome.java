@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.util.sql.TransactionManager;
+import jakarta.enterprise.inject.spi.CDI;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * This class provides instances management methods for FormResponseIndexation objects
+ */
+public final class FormResponseIndexationHome
+{
+    // Static variable pointed at the DAO instance
+    private static IFormResponseIndexationDAO _dao = CDI.current( ).select( IFormResponseIndexationDAO.class ).get( );
+    private static Plugin _plugin = PluginService.getPlugin( "elasticdata-forms" );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private FormResponseIndexationHome( )
+    {
+    }
+
+    /**
+     * Create or replace the records of a list of form responses, in one transaction
+     * 
+     * @param listFormResponseIndexation
+     *            the FormResponseIndexation objects to store
+     */
+    public static void storeAll( Collection<FormResponseIndexation> listFormResponseIndexation )
+    {
+        if ( listFormResponseIndexation.isEmpty( ) )
+        {
+            return;
+        }
+        List<Integer> listIdFormResponse = listFormResponseIndexation.stream( ).map( FormResponseIndexation::getIdFormResponse )
+                .collect( Collectors.toList( ) );
+        TransactionManager.beginTransaction( _plugin );
+        try
+        {
+            _dao.deleteByFormResponseIds( listIdFormResponse, _plugin );
+            _dao.insertAll( listFormResponseIndexation, _plugin );
+            TransactionManager.commitTransaction( _plugin );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( _plugin );
+            throw e;
+        }
+    }
+
+    /**
+     * Remove all the records, so that the next indexing of each form response is complete
+     */
+    public static void removeAll( )
+    {
+        _dao.deleteAll( _plugin );
+    }
+
+    /**
+     * Load the records of a list of form responses
+     * 
+     * @param listIdFormResponse
+     *            the form response ids
+     * @return the FormResponseIndexation objects by form response id
+     */
+    public static Map<Integer, FormResponseIndexation> findByFormResponseIds( Collection<Integer> listIdFormResponse )
+    {
+        return _dao.selectByFormResponseIds( listIdFormResponse, _plugin ).stream( )
+                .collect( Collectors.toMap( FormResponseIndexation::getIdFormResponse, Function.identity( ) ) );
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import fr.paris.lutece.plugins.elasticdata.business.DataObject;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.metrics.IndexingMetricsService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.metrics.IndexingStage;
+
+/**
+ * Iterates over the data objects of the forms data source, building them page of ids by page of ids so that neither the full id list nor the full
+ * document list is held in memory. Nothing is recorded in the indexation records: elasticdata may still hold the documents of a page it has
+ * consumed, and does not report whether it has sent them.
+ */
+public class FormsDataObjectsIterator implements Iterator<DataObject>
+{
+    private final Iterator<List<Integer>> _itIdPages;
+    private final Function<List<Integer>, List<DataObject>> _loader;
+    private final IndexingMetricsService _metricsService;
+    private Iterator<DataObject> _itCurrentPage = Collections.emptyIterator( );
+    private long _lPageLoadedAt;
+    private int _nPageSize;
+
+    /**
+     * Constructor
+     * 
+     * @param itIdPages
+     *            the iterator over the pages of form response ids
+     * @param loader
+     *            the function building the data objects of a page of ids
+     * @param metricsService
+     *            the service recording the id scan and hand-off durations
+     */
+    public FormsDataObjectsIterator( Iterator<List<Integer>> itIdPages, Function<List<Integer>, List<DataObject>> loader,
+            IndexingMetricsService metricsService )
+    {
+        _itIdPages = itIdPages;
+        _loader = loader;
+        _metricsService = metricsService;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean hasNext( )
+    {
+        if ( !_itCurrentPage.hasNext( ) && _lPageLoadedAt != 0 )
+        {
+            // the documents of the previous page have all been consumed by elasticdata
+            _metricsService.recordStage( IndexingStage.HAND_OFF, _lPageLoadedAt, _nPageSize );
+            _lPageLoadedAt = 0;
+        }
+        while ( !_itCurrentPage.hasNext( ) )
+        {
+            long lStart = System.nanoTime( );
+            if ( !_itIdPages.hasNext( ) )
+            {
+                return false;
+            }
+            List<Integer> listIdPage = _itIdPages.next( );
+            _metricsService.recordStage( IndexingStage.ID_SCAN, lStart, listIdPage.size( ) );
+            List<DataObject> listDataObjects = _loader.apply( listIdPage );
+            _itCurrentPage = listDataObjects.iterator( );
+            _nPageSize = listDataObjects.size( );
+            _lPageLoadedAt = System.nanoTime( );
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public DataObject next( )
+    {
+        if ( !hasNext( ) )
+        {
+            throw new NoSuchElementException( );
+        }
+        return _itCurrentPage.next( );
+    }
+}
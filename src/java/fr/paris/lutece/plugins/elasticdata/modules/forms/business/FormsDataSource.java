@@ -35,42 +35,37 @@ package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
 
 import fr.paris.lutece.plugins.elasticdata.business.AbstractDataSource;
 import fr.paris.lutece.plugins.elasticdata.business.DataObject;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache.FormsIndexingCacheService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache.WorkflowMetadata;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing.BatchSizeService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing.IndexingExecutorService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.metrics.IndexingMetricsService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.metrics.IndexingStage;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.FormSchema;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.QuestionSchema;
 import fr.paris.lutece.plugins.elasticdata.service.DataSourceIncrementalService;
 import fr.paris.lutece.plugins.forms.business.Form;
-import fr.paris.lutece.plugins.forms.business.FormHome;
 import fr.paris.lutece.plugins.forms.business.FormQuestionResponse;
 import fr.paris.lutece.plugins.forms.business.FormQuestionResponseHome;
 import fr.paris.lutece.plugins.forms.business.FormResponse;
 import fr.paris.lutece.plugins.forms.business.FormResponseHome;
-import fr.paris.lutece.plugins.forms.business.Question;
-import fr.paris.lutece.plugins.forms.business.QuestionHome;
-import fr.paris.lutece.plugins.forms.service.entrytype.EntryTypeCheckBox;
-import fr.paris.lutece.plugins.forms.service.entrytype.EntryTypeGeolocation;
-import fr.paris.lutece.plugins.forms.service.entrytype.EntryTypeSelectOrder;
-import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
-import fr.paris.lutece.plugins.genericattributes.business.Field;
-import fr.paris.lutece.plugins.genericattributes.business.FieldHome;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
-import fr.paris.lutece.plugins.genericattributes.service.entrytype.EntryTypeServiceManager;
-import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
-import fr.paris.lutece.plugins.genericattributes.util.GenericAttributesUtils;
 import fr.paris.lutece.plugins.workflowcore.business.action.Action;
-import fr.paris.lutece.plugins.workflowcore.business.action.ActionFilter;
 import fr.paris.lutece.plugins.workflowcore.business.resource.ResourceHistory;
-import fr.paris.lutece.plugins.workflowcore.business.resource.ResourceHistoryFilter;
 import fr.paris.lutece.plugins.workflowcore.business.state.State;
-import fr.paris.lutece.plugins.workflowcore.business.state.StateFilter;
-import fr.paris.lutece.plugins.workflowcore.service.action.IActionService;
-import fr.paris.lutece.plugins.workflowcore.service.resource.IResourceHistoryService;
-import fr.paris.lutece.plugins.workflowcore.service.state.IStateService;
 import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Vector;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -85,18 +80,28 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 public class FormsDataSource extends AbstractDataSource
 {
     @Inject
-    private IActionService _actionService;
+    private FormsIndexingCacheService _cacheService;
     @Inject
-    private IResourceHistoryService _resourceHistoryService;
+    private BatchSizeService _batchSizeService;
     @Inject
-    private IStateService _stateService;
+    private IndexingExecutorService _executorService;
+    @Inject
+    private IndexingMetricsService _metricsService;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.indexing.idPageSize", defaultValue = "1000" )
+    private int _nIdPageSize;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.history.appendOnly", defaultValue = "false" )
+    private boolean _bHistoryAppendOnly;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.incremental.partialUpdates", defaultValue = "true" )
+    private boolean _bPartialUpdates;
 
+    public static final String DOCUMENT_TYPE_NAME_FORM_RESPONSE = "formResponse";
+    public static final String DOCUMENT_TYPE_NAME_FORM_RESPONSE_HISTORY = "formResponseHistory";
+    public static final String RESSOURCE_TYPE = "FORMS_FORM_RESPONSE";
     private static final String DATA_SOURCE_NAME = "FormsDataSource";
-    private static final String DOCUMENT_TYPE_NAME_FORM_RESPONSE = "formResponse";
-    private static final String DOCUMENT_TYPE_NAME_FORM_RESPONSE_HISTORY = "formResponseHistory";
-    private static final String RESSOURCE_TYPE = "FORMS_FORM_RESPONSE";
-    private static final int SQL_MAX_SELECT_IN = 80;
-    Map<Integer, String> _mapFields = new HashMap<>( );
+    private static final String FIELD_USER_RESPONSES = "userResponses";
     
     public FormsDataSource( ){}
 
@@ -115,42 +120,309 @@ public class FormsDataSource extends AbstractDataSource
     @Override
     public List<String> getIdDataObjects( )
     {
-        List<Form> listForms = FormHome.getFormList( );
-        List<Integer> listFormResponseId = new ArrayList<>( );
-        listForms.parallelStream( ).forEach( form -> {
-            List<FormResponse> listFormResponses = FormResponseHome.selectAllFormResponsesUncompleteByIdForm( form.getId( ) );
-            listFormResponseId.addAll( listFormResponses.parallelStream( ).map( i -> i.getId( ) ).distinct( ).collect( Collectors.toList( ) ) );
-        } );
-        return listFormResponseId.stream( ).map( Object::toString ).collect( Collectors.toList( ) );
+        List<String> listIdDataObjects = new ArrayList<>( );
+        new FormResponseIdIterator( _nIdPageSize ).forEachRemaining( listPage -> listPage.forEach( nId -> listIdDataObjects.add( String.valueOf( nId ) ) ) );
+        return listIdDataObjects;
+    }
+
+    /**
+     * {@inheritDoc }
+     * <p>
+     * The ids are read page by page with keyset pagination, and each page is turned into data objects before the next one is read, so the full id list
+     * is never held in memory. The form schemas are compiled again at the start of each run. As elasticdata does not report which documents it has
+     * sent, the indexation records are removed instead of being updated: the next indexing of each form response is a full one.
+     */
+    @Override
+    public Iterator<DataObject> getDataObjectsIterator( )
+    {
+        _cacheService.invalidateSchemas( );
+        if ( isIndexationTracked( ) )
+        {
+            FormResponseIndexationHome.removeAll( );
+        }
+        return new FormsDataObjectsIterator( new FormResponseIdIterator( _nIdPageSize ), listIdPage -> buildFullDocuments( listIdPage ).getDataObjects( ),
+                _metricsService );
     }
 
+    /**
+     * {@inheritDoc }
+     * <p>
+     * In append-only history mode, only the formResponseHistory documents created since the last indexing of each form response are returned.
+     * The indexation records are not updated, as elasticdata sends the documents after they are returned and does not report the outcome: they
+     * keep describing the last indexing confirmed by a bulk request of this module.
+     */
     @Override
-    public synchronized List<DataObject> getDataObjects( List<String> listIdDataObjects )
+    public List<DataObject> getDataObjects( List<String> listIdDataObjects )
+    {
+        return buildIncrementalDocuments( listIdDataObjects.stream( ).map( Integer::valueOf ).collect( Collectors.toList( ) ) ).getDataObjects( );
+    }
+
+    /**
+     * Build the documents of a list of form responses for their incremental indexing: in append-only history mode, only the formResponseHistory
+     * documents created since their last indexing are built. The caller is expected to store the indexation records once the documents are sent.
+     * 
+     * @param listIdFormResponse
+     *            the form response ids
+     * @return the documents
+     */
+    public FormResponseDocuments buildIncrementalDocuments( List<Integer> listIdFormResponse )
+    {
+        return buildDocuments( listIdFormResponse, _bHistoryAppendOnly, true );
+    }
+
+    /**
+     * Build all the documents of a list of form responses to index them in full, whatever the history mode. The caller is expected to store the
+     * indexation records once the documents are sent.
+     * 
+     * @param listIdFormResponse
+     *            the form response ids
+     * @return the documents
+     */
+    public FormResponseDocuments buildFullDocuments( List<Integer> listIdFormResponse )
+    {
+        return buildDocuments( listIdFormResponse, false, true );
+    }
+
+    /**
+     * Build the documents of a list of form responses
+     * 
+     * @param listIdFormResponse
+     *            the form response ids
+     * @param bAppendOnly
+     *            true to build only the formResponseHistory documents that have not been indexed yet
+     * @param bUserResponsesIndexed
+     *            true if the user responses of the documents are indexed, so that their update date can be recorded
+     * @return the documents
+     */
+    private FormResponseDocuments buildDocuments( List<Integer> listIdFormResponse, boolean bAppendOnly, boolean bUserResponsesIndexed )
     {
-        List<DataObject> collResult = new Vector<>( );
-        _mapFields = new HashMap<>( );
-        AtomicInteger counter = new AtomicInteger( );
         // split for db performance
-        Map<Integer, List<String>> listIdDataObjectSplited = listIdDataObjects.stream( )
-                .collect( Collectors.groupingBy( it -> counter.getAndIncrement( ) / SQL_MAX_SELECT_IN ) );
+        int nBatchSize = _batchSizeService.getBatchSize( );
+        List<List<Integer>> listBatches = new ArrayList<>( );
+        for ( int nStart = 0; nStart < listIdFormResponse.size( ); nStart += nBatchSize )
+        {
+            listBatches.add( listIdFormResponse.subList( nStart, Math.min( nStart + nBatchSize, listIdFormResponse.size( ) ) ) );
+        }
 
-        listIdDataObjectSplited.entrySet( ).parallelStream( ).forEach( e -> {
+        // each batch builds its own result on the indexing executor, the results are merged once all the batches are built
+        return FormResponseDocuments.merge( _executorService.mapAll( listBatches, listBatch -> getBatchDocuments( listBatch, bAppendOnly, bUserResponsesIndexed ) ) );
+    }
 
-            List<Integer> listIdFormResponse = e.getValue( ).stream( ).map( x -> Integer.valueOf( x ) ).collect( Collectors.toList( ) );
-            List<FormResponse> formResponseList = FormResponseHome.getFormResponseUncompleteByPrimaryKeyList( listIdFormResponse );
-            List<FormQuestionResponse> listFormQuestionResponse = FormQuestionResponseHome.getFormQuestionResponseListByFormResponseList( listIdFormResponse );
-            List<List<FormResponse>> listFormFormResponse = formResponseList.stream( )
-                    .collect( Collectors.groupingBy( FormResponse::getFormId, Collectors.toList( ) ) ).values( ).stream( ).collect( Collectors.toList( ) );
+    /**
+     * Build the documents of a batch of form responses
+     * 
+     * @param listIdFormResponse
+     *            the batch of form response ids
+     * @param bAppendOnly
+     *            true to build only the formResponseHistory documents that have not been indexed yet
+     * @param bUserResponsesIndexed
+     *            true if the user responses of the documents are indexed
+     * @return the documents of the batch
+     */
+    private FormResponseDocuments getBatchDocuments( List<Integer> listIdFormResponse, boolean bAppendOnly, boolean bUserResponsesIndexed )
+    {
+        long lStart = System.currentTimeMillis( );
+        _metricsService.recordBatchSize( listIdFormResponse.size( ) );
+        List<DataObject> listDataObjects = new ArrayList<>( );
+        long lStageStart = System.nanoTime( );
+        List<FormResponse> formResponseList = FormResponseHome.getFormResponseUncompleteByPrimaryKeyList( listIdFormResponse );
+        _metricsService.recordStage( IndexingStage.FORM_RESPONSES, lStageStart, formResponseList.size( ) );
+        lStageStart = System.nanoTime( );
+        List<FormQuestionResponse> listFormQuestionResponse = FormQuestionResponseHome.getFormQuestionResponseListByFormResponseList( listIdFormResponse );
+        _metricsService.recordStage( IndexingStage.QUESTION_RESPONSES, lStageStart, listFormQuestionResponse.size( ) );
+        Map<Integer, List<FormResponse>> mapFormResponseByForm = formResponseList.stream( )
+                .collect( Collectors.groupingBy( FormResponse::getFormId, Collectors.toList( ) ) );
+        Map<Integer, List<FormQuestionResponse>> mapFormQuestionResponse = groupByFormResponse( listFormQuestionResponse );
+
+        Map<Integer, Form> mapForms = new HashMap<>( );
+        for ( Integer nIdForm : mapFormResponseByForm.keySet( ) )
+        {
+            Form form = _cacheService.getForm( nIdForm );
+            if ( form != null )
+            {
+                mapForms.put( nIdForm, form );
+            }
+        }
+        lStageStart = System.nanoTime( );
+        Map<Integer, List<ResourceHistory>> mapResourceHistory = getResourceHistoryByFormResponse( formResponseList, mapForms );
+        long lHistoryCount = mapResourceHistory.values( ).stream( ).mapToLong( List::size ).sum( );
+        _metricsService.recordStage( IndexingStage.HISTORY, lStageStart, lHistoryCount );
+        Map<Integer, FormResponseIndexation> mapIndexation = isIndexationTracked( ) ? FormResponseIndexationHome.findByFormResponseIds( listIdFormResponse )
+                : Collections.emptyMap( );
+        Map<Integer, FormResponseIndexation> mapIndexedHistory = bAppendOnly ? mapIndexation : Collections.emptyMap( );
+
+        lStageStart = System.nanoTime( );
+        for ( Map.Entry<Integer, List<FormResponse>> entry : mapFormResponseByForm.entrySet( ) )
+        {
+            Form form = mapForms.get( entry.getKey( ) );
+            if ( form != null )
+            {
+                listDataObjects.addAll( getDataObjects( entry.getValue( ), mapFormQuestionResponse, mapResourceHistory, mapIndexedHistory, form ) );
+            }
+        }
+        _metricsService.recordStage( IndexingStage.ASSEMBLY, lStageStart, listDataObjects.size( ) );
+        recordDocuments( listDataObjects );
+        List<FormResponseIndexation> listIndexation = isIndexationTracked( )
+                ? getChangedIndexation( formResponseList, mapResourceHistory, mapIndexation, bUserResponsesIndexed )
+                : Collections.emptyList( );
+
+        long lRowCount = (long) formResponseList.size( ) + listFormQuestionResponse.size( ) + lHistoryCount;
+        _batchSizeService.recordBatch( listIdFormResponse.size( ), lRowCount, System.currentTimeMillis( ) - lStart );
+        return new FormResponseDocuments( listDataObjects, listIndexation );
+    }
 
-            for ( List<FormResponse> listformResponse : listFormFormResponse )
+    /**
+     * Build the documents of form responses whose user responses have not changed since their last indexing: the formResponse documents only carry
+     * up-to-date workflow data, and only the formResponseHistory documents that have not been indexed yet are built. The question responses are
+     * read only for the form responses that have new history documents carrying user responses. The caller is expected to store the indexation
+     * records once the documents are sent.
+     * 
+     * @param listFormResponse
+     *            the form responses
+     * @param mapIndexation
+     *            what has already been indexed, by form response id
+     * @return the documents
+     */
+    public FormResponseDocuments buildWorkflowDocuments( List<FormResponse> listFormResponse, Map<Integer, FormResponseIndexation> mapIndexation )
+    {
+        List<DataObject> listDataObjects = new ArrayList<>( );
+        Map<Integer, List<FormResponse>> mapFormResponseByForm = listFormResponse.stream( )
+                .collect( Collectors.groupingBy( FormResponse::getFormId, Collectors.toList( ) ) );
+        Map<Integer, Form> mapForms = new HashMap<>( );
+        for ( Integer nIdForm : mapFormResponseByForm.keySet( ) )
+        {
+            Form form = _cacheService.getForm( nIdForm );
+            if ( form != null )
             {
-                Form form = FormHome.findByPrimaryKey( listformResponse.get( 0 ).getFormId( ) );
-                List<ResourceHistory> listResourceHistory = getResourceHistoryList( listIdFormResponse, form.getIdWorkflow( ) );
+                mapForms.put( nIdForm, form );
+            }
+        }
+        Map<Integer, List<ResourceHistory>> mapResourceHistory = getResourceHistoryByFormResponse( listFormResponse, mapForms );
 
-                collResult.addAll( getDataObjects( listformResponse, listFormQuestionResponse, listResourceHistory, form ) );
+        List<Integer> listIdWithUserResponses = new ArrayList<>( );
+        for ( FormResponse formResponse : listFormResponse )
+        {
+            FormResponseIndexation formResponseIndexation = mapIndexation.get( formResponse.getId( ) );
+            int nLastIndexedIdHistory = ( formResponseIndexation != null ) ? formResponseIndexation.getIdLastHistory( ) : 0;
+            boolean bNewHistory = mapResourceHistory.getOrDefault( formResponse.getId( ), Collections.emptyList( ) ).stream( )
+                    .anyMatch( resourceHistory -> resourceHistory.getId( ) > nLastIndexedIdHistory );
+            if ( bNewHistory && mapForms.containsKey( formResponse.getFormId( ) )
+                    && FormIndexationHome.findByFormId( formResponse.getFormId( ) ).getHistoryResponsesMode( ) != HistoryResponsesMode.REFERENCE )
+            {
+                listIdWithUserResponses.add( formResponse.getId( ) );
             }
-        } );
-        return collResult;
+        }
+        Map<Integer, List<FormQuestionResponse>> mapFormQuestionResponse = listIdWithUserResponses.isEmpty( ) ? Collections.emptyMap( )
+                : groupByFormResponse( FormQuestionResponseHome.getFormQuestionResponseListByFormResponseList( listIdWithUserResponses ) );
+
+        for ( Map.Entry<Integer, List<FormResponse>> entry : mapFormResponseByForm.entrySet( ) )
+        {
+            Form form = mapForms.get( entry.getKey( ) );
+            if ( form != null )
+            {
+                listDataObjects.addAll( getDataObjects( entry.getValue( ), mapFormQuestionResponse, mapResourceHistory, mapIndexation, form ) );
+            }
+        }
+        return new FormResponseDocuments( listDataObjects, getChangedIndexation( listFormResponse, mapResourceHistory, mapIndexation, false ) );
+    }
+
+    /**
+     * Build the partial updates adding the responses to some questions to the documents of form responses of a form. The formResponseHistory
+     * documents are updated according to the history mode of the form.
+     * 
+     * @param listIdFormResponse
+     *            the form response ids
+     * @param form
+     *            the form
+     * @param collectionIdQuestion
+     *            the ids of the questions to add
+     * @return the userResponses fields to merge, by document id
+     */
+    public Map<String, Map<String, Object>> buildUserResponsesUpdates( List<Integer> listIdFormResponse, Form form,
+            Collection<Integer> collectionIdQuestion )
+    {
+        Map<String, Map<String, Object>> mapUpdates = new LinkedHashMap<>( );
+        int nIdForm = form.getId( );
+        BitSet setQuestion = new BitSet( );
+        collectionIdQuestion.forEach( setQuestion::set );
+        OptionalQuestionSelection questionSelection = OptionalQuestionIndexationHome.getSelectionByFormId( nIdForm );
+        HistoryResponsesMode historyResponsesMode = FormIndexationHome.findByFormId( nIdForm ).getHistoryResponsesMode( );
+        FormSchema schema = _cacheService.getFormSchema( nIdForm );
+        Map<Integer, List<FormQuestionResponse>> mapFormQuestionResponse = groupByFormResponse(
+                FormQuestionResponseHome.getFormQuestionResponseListByFormResponseList( listIdFormResponse ) );
+        Map<Integer, List<ResourceHistory>> mapResourceHistory = ( historyResponsesMode == HistoryResponsesMode.REFERENCE || form.getIdWorkflow( ) <= 0 )
+                ? Collections.emptyMap( )
+                : groupByResource( ResourceHistoryIndexationHome.getResourceHistoryList( listIdFormResponse,
+                        Collections.singletonList( form.getIdWorkflow( ) ), RESSOURCE_TYPE ) );
+
+        for ( Integer nIdFormResponse : listIdFormResponse )
+        {
+            List<FormQuestionResponse> listFormQuestionResponse = new ArrayList<>( );
+            for ( FormQuestionResponse formQuestionResponse : mapFormQuestionResponse.getOrDefault( nIdFormResponse, Collections.emptyList( ) ) )
+            {
+                if ( setQuestion.get( formQuestionResponse.getQuestion( ).getId( ) ) )
+                {
+                    listFormQuestionResponse.add( formQuestionResponse );
+                }
+            }
+            FormResponseDataObject formResponseDataObject = new FormResponseDataObject( );
+            setUserResponses( formResponseDataObject, listFormQuestionResponse, schema );
+            if ( formResponseDataObject.getUserResponses( ).isEmpty( ) )
+            {
+                continue;
+            }
+            mapUpdates.put( String.valueOf( nIdFormResponse ), Collections.singletonMap( FIELD_USER_RESPONSES, formResponseDataObject.getUserResponses( ) ) );
+
+            Map<String, Object> mapHistoryUserResponses = getHistoryUserResponses( formResponseDataObject.getUserResponses( ), historyResponsesMode,
+                    questionSelection );
+            if ( mapHistoryUserResponses != null && !mapHistoryUserResponses.isEmpty( ) )
+            {
+                for ( ResourceHistory resourceHistory : mapResourceHistory.getOrDefault( nIdFormResponse, Collections.emptyList( ) ) )
+                {
+                    mapUpdates.put( getHistoryDocumentId( resourceHistory.getId( ) ), Collections.singletonMap( FIELD_USER_RESPONSES, mapHistoryUserResponses ) );
+                }
+            }
+        }
+        return mapUpdates;
+    }
+
+    /**
+     * Count the documents built by type
+     * 
+     * @param listDataObjects
+     *            the documents
+     */
+    private void recordDocuments( List<DataObject> listDataObjects )
+    {
+        long lHistoryDocuments = 0;
+        for ( DataObject dataObject : listDataObjects )
+        {
+            if ( DOCUMENT_TYPE_NAME_FORM_RESPONSE_HISTORY.equals( ( (FormResponseDataObject) dataObject ).getDocumentTypeName( ) ) )
+            {
+                lHistoryDocuments++;
+            }
+        }
+        _metricsService.recordDocuments( listDataObjects.size( ) - lHistoryDocuments, lHistoryDocuments );
+    }
+
+    /**
+     * Returns true if the workflow only changes of the form responses are indexed with partial updates
+     * 
+     * @return true if the partial updates are enabled
+     */
+    public boolean isPartialUpdates( )
+    {
+        return _bPartialUpdates;
+    }
+
+    /**
+     * Returns true if what has been indexed for each form response is recorded
+     * 
+     * @return true if the append-only history or the partial updates are enabled
+     */
+    public boolean isIndexationTracked( )
+    {
+        return _bHistoryAppendOnly || _bPartialUpdates;
     }
 
     /**
@@ -169,31 +441,94 @@ public class FormsDataSource extends AbstractDataSource
     public List<FormResponseDataObject> getDataObjects( List<FormResponse> listformResponse, List<FormQuestionResponse> listFormQuestionResponse,
             List<ResourceHistory> listResourceHistory, Form form )
     {
-        List<FormResponseDataObject> formResponseDataObjectList = new ArrayList<>( );
+        return getDataObjects( listformResponse, groupByFormResponse( listFormQuestionResponse ), groupByResource( listResourceHistory ),
+                Collections.emptyMap( ), form );
+    }
 
+    /**
+     * Get a list of documents to index from the batch data already grouped by form response id
+     * 
+     * @param listformResponse
+     *            The list of form response
+     * @param mapFormQuestionResponse
+     *            The form question responses of the batch, by form response id
+     * @param mapResourceHistory
+     *            The ressource history of the batch ordered by creation date, by form response id
+     * @param mapIndexation
+     *            What has already been indexed, by form response id. The history already indexed is not built again.
+     * @param form
+     *            The form
+     * @return a list of form response object
+     */
+    private List<FormResponseDataObject> getDataObjects( List<FormResponse> listformResponse, Map<Integer, List<FormQuestionResponse>> mapFormQuestionResponse,
+            Map<Integer, List<ResourceHistory>> mapResourceHistory, Map<Integer, FormResponseIndexation> mapIndexation, Form form )
+    {
         int nIdForm = form.getId( );
-        int nIdWorkflow = form.getIdWorkflow( );
 
-        List<State> listStates = getStateList( nIdWorkflow );
-        List<Action> listActions = getActionList( nIdWorkflow );
+        Set<Integer> setIdAction = new HashSet<>( );
+        for ( FormResponse formResponse : listformResponse )
+        {
+            for ( ResourceHistory resourceHistory : mapResourceHistory.getOrDefault( formResponse.getId( ), Collections.emptyList( ) ) )
+            {
+                setIdAction.add( resourceHistory.getAction( ).getId( ) );
+            }
+        }
+        WorkflowMetadata workflowMetadata = _cacheService.getWorkflowMetadata( form.getIdWorkflow( ), setIdAction );
+        OptionalQuestionSelection questionSelection = OptionalQuestionIndexationHome.getSelectionByFormId( nIdForm );
+        HistoryResponsesMode historyResponsesMode = FormIndexationHome.findByFormId( nIdForm ).getHistoryResponsesMode( );
+        FormSchema schema = _cacheService.getFormSchema( nIdForm );
+
+        return buildFormDocuments( listformResponse, mapFormQuestionResponse, mapResourceHistory, mapIndexation, form, workflowMetadata, questionSelection,
+                historyResponsesMode, schema );
+    }
 
-        List<Integer> optionalQuestionIndexations = OptionalQuestionIndexationHome.getOptionalQuestionIndexationListByFormId( nIdForm ).stream( )
-                .map( OptionalQuestionIndexation::getIdQuestion ).collect( Collectors.toList( ) );
-        List<Question> listQuestions = QuestionHome.findByPrimaryKeyList( optionalQuestionIndexations );
+    /**
+     * Build the documents of form responses of a form from the batch data and the metadata of the form. No database nor cache is read, which allows
+     * to benchmark the document building on its own.
+     * 
+     * @param listformResponse
+     *            The list of form response
+     * @param mapFormQuestionResponse
+     *            The form question responses of the batch, by form response id
+     * @param mapResourceHistory
+     *            The ressource history of the batch ordered by creation date, by form response id
+     * @param mapIndexation
+     *            What has already been indexed, by form response id
+     * @param form
+     *            The form
+     * @param workflowMetadata
+     *            The states and actions of the form workflow
+     * @param questionSelection
+     *            The indexed questions of the form
+     * @param historyResponsesMode
+     *            The user responses mode of the history documents of the form
+     * @param schema
+     *            The compiled schema of the form
+     * @return a list of form response object
+     */
+    List<FormResponseDataObject> buildFormDocuments( List<FormResponse> listformResponse, Map<Integer, List<FormQuestionResponse>> mapFormQuestionResponse,
+            Map<Integer, List<ResourceHistory>> mapResourceHistory, Map<Integer, FormResponseIndexation> mapIndexation, Form form,
+            WorkflowMetadata workflowMetadata, OptionalQuestionSelection questionSelection, HistoryResponsesMode historyResponsesMode, FormSchema schema )
+    {
+        List<FormResponseDataObject> formResponseDataObjectList = new ArrayList<>( );
 
         for ( FormResponse formResponse : listformResponse )
         {
             int formResponseId = formResponse.getId( );
             Timestamp formResponseCreation = formResponse.getCreation( );
 
-            List<ResourceHistory> listResourceHistoryFiltred = listResourceHistory.stream( )
-                    .filter( resourceHistory -> resourceHistory.getIdResource( ) == formResponseId ).collect( Collectors.toList( ) );
-            ResourceHistory lastRessourceHistory = listResourceHistoryFiltred.stream( )
-                    .filter( resourceHistory -> resourceHistory.getIdResource( ) == formResponseId ).reduce( ( first, second ) -> second ).orElse( null );
+            List<ResourceHistory> listResourceHistoryFiltred = mapResourceHistory.getOrDefault( formResponseId, Collections.emptyList( ) );
+            ResourceHistory lastRessourceHistory = listResourceHistoryFiltred.isEmpty( ) ? null
+                    : listResourceHistoryFiltred.get( listResourceHistoryFiltred.size( ) - 1 );
 
-            List<FormQuestionResponse> listFormResponseQuestionResponse = listFormQuestionResponse.parallelStream( )
-                    .filter( x -> optionalQuestionIndexations.contains( x.getQuestion( ).getId( ) ) && x.getIdFormResponse( ) == formResponse.getId( ) )
-                    .collect( Collectors.toList( ) );
+            List<FormQuestionResponse> listFormResponseQuestionResponse = new ArrayList<>( );
+            for ( FormQuestionResponse formQuestionResponse : mapFormQuestionResponse.getOrDefault( formResponseId, Collections.emptyList( ) ) )
+            {
+                if ( questionSelection.isIndexed( formQuestionResponse.getQuestion( ).getId( ) ) )
+                {
+                    listFormResponseQuestionResponse.add( formQuestionResponse );
+                }
+            }
 
             FormResponseDataObject formResponseDataObject = new FormResponseDataObject( );
             formResponseDataObject.setId( String.valueOf( formResponseId ) );
@@ -204,42 +539,104 @@ public class FormsDataSource extends AbstractDataSource
             formResponseDataObject.setParentId( String.valueOf( form.getId( ) ) );
             formResponseDataObject.setParentName( form.getTitle( ) );
             formResponseDataObject.setDocumentTypeName( DOCUMENT_TYPE_NAME_FORM_RESPONSE );
-            setLastResourceHistory( formResponseDataObject, listStates, listActions, lastRessourceHistory, formResponseCreation );
-            setUserResponses( formResponseDataObject, listFormResponseQuestionResponse, listQuestions );
-
-            formResponseDataObjectList.addAll(
-                    getFormResponseHistory( formResponseDataObject, listResourceHistoryFiltred, formResponse.getCreation( ), listActions, listStates ) );
+            setLastResourceHistory( formResponseDataObject, workflowMetadata, lastRessourceHistory, formResponseCreation );
+            setUserResponses( formResponseDataObject, listFormResponseQuestionResponse, schema );
+
+            FormResponseIndexation formResponseIndexation = mapIndexation.get( formResponseId );
+            int nLastIndexedIdHistory = ( formResponseIndexation != null ) ? formResponseIndexation.getIdLastHistory( ) : 0;
+            Map<String, Object> mapHistoryUserResponses = getHistoryUserResponses( formResponseDataObject.getUserResponses( ), historyResponsesMode,
+                    questionSelection );
+            formResponseDataObjectList.addAll( getFormResponseHistory( formResponseDataObject, mapHistoryUserResponses, listResourceHistoryFiltred,
+                    formResponse.getCreation( ), workflowMetadata, nLastIndexedIdHistory ) );
             formResponseDataObjectList.add( formResponseDataObject );
         }
 
         return formResponseDataObjectList;
     }
 
+    /**
+     * Returns what the documents of a batch index for its form responses: the last ressource history, and the update date of the form response when
+     * its user responses are indexed. Only the records that have changed are returned.
+     * 
+     * @param listFormResponse
+     *            the form responses of the batch
+     * @param mapResourceHistory
+     *            the ressource history of the batch, by form response id
+     * @param mapIndexation
+     *            what had already been indexed, by form response id
+     * @param bUserResponsesIndexed
+     *            true if the user responses are indexed
+     * @return the changed records
+     */
+    private static List<FormResponseIndexation> getChangedIndexation( List<FormResponse> listFormResponse,
+            Map<Integer, List<ResourceHistory>> mapResourceHistory, Map<Integer, FormResponseIndexation> mapIndexation, boolean bUserResponsesIndexed )
+    {
+        List<FormResponseIndexation> listChanged = new ArrayList<>( );
+        for ( FormResponse formResponse : listFormResponse )
+        {
+            int nIdLastHistory = mapResourceHistory.getOrDefault( formResponse.getId( ), Collections.emptyList( ) ).stream( )
+                    .mapToInt( ResourceHistory::getId ).max( ).orElse( 0 );
+            FormResponseIndexation formResponseIndexation = mapIndexation.get( formResponse.getId( ) );
+            Timestamp dateResponseUpdate = bUserResponsesIndexed ? formResponse.getUpdate( )
+                    : ( formResponseIndexation != null ? formResponseIndexation.getResponseUpdate( ) : null );
+            if ( formResponseIndexation == null || formResponseIndexation.getIdLastHistory( ) != nIdLastHistory
+                    || !Objects.equals( formResponseIndexation.getResponseUpdate( ), dateResponseUpdate ) )
+            {
+                FormResponseIndexation changed = new FormResponseIndexation( );
+                changed.setIdFormResponse( formResponse.getId( ) );
+                changed.setIdLastHistory( nIdLastHistory );
+                changed.setResponseUpdate( dateResponseUpdate );
+                listChanged.add( changed );
+            }
+        }
+        return listChanged;
+    }
+
+    /**
+     * Group the form question responses of a batch by form response id
+     * 
+     * @param listFormQuestionResponse
+     *            the form question responses
+     * @return the form question responses by form response id
+     */
+    static Map<Integer, List<FormQuestionResponse>> groupByFormResponse( List<FormQuestionResponse> listFormQuestionResponse )
+    {
+        return listFormQuestionResponse.stream( ).collect( Collectors.groupingBy( FormQuestionResponse::getIdFormResponse ) );
+    }
+
+    /**
+     * Group the ressource history of a batch by resource id, keeping the order of the list
+     * 
+     * @param listResourceHistory
+     *            the ressource history
+     * @return the ressource history by resource id
+     */
+    static Map<Integer, List<ResourceHistory>> groupByResource( List<ResourceHistory> listResourceHistory )
+    {
+        return listResourceHistory.stream( ).collect( Collectors.groupingBy( ResourceHistory::getIdResource ) );
+    }
+
     /**
      * populate the form response data object with the last ressource history
      * 
      * @param formResponseDataObject
      *            the form response data object
-     * @param listStates
-     *            the list of states
-     * @param listActions
-     *            the list of actions
+     * @param workflowMetadata
+     *            the states and actions of the form workflow
      * @param lastRessourceHistory
      *            the last ressource history
      */
-    private void setLastResourceHistory( FormResponseDataObject formResponseDataObject, List<State> listStates, List<Action> listActions,
+    private void setLastResourceHistory( FormResponseDataObject formResponseDataObject, WorkflowMetadata workflowMetadata,
             ResourceHistory lastRessourceHistory, Timestamp formResponseCreation )
     {
         if ( lastRessourceHistory != null )
         {
-            Action lastCompletedAction = listActions.stream( ).filter( action2 -> action2.getId( ) == lastRessourceHistory.getAction( ).getId( ) ).findFirst( )
-                    .orElse( null );
+            Action lastCompletedAction = workflowMetadata.getAction( lastRessourceHistory.getAction( ).getId( ) );
             long lcompleteDuration = duration( formResponseCreation, lastRessourceHistory.getCreationDate( ) );
             formResponseDataObject.setCompleteDuration( lcompleteDuration );
             if ( lastCompletedAction != null )
             {
-                State stateFormResponse = listStates.stream( ).filter( state2 -> state2.getId( ) == lastCompletedAction.getStateAfter( ).getId( ) ).findFirst( )
-                        .orElse( null );
+                State stateFormResponse = workflowMetadata.getStateAfter( lastCompletedAction.getId( ) );
                 if ( stateFormResponse != null )
                 {
                     formResponseDataObject.setWorkflowState( stateFormResponse.getName( ) );
@@ -249,32 +646,76 @@ public class FormsDataSource extends AbstractDataSource
         }
     }
 
+    /**
+     * Returns the user responses carried by the history documents of a form response
+     * 
+     * @param mapUserResponses
+     *            the user responses of the form response document
+     * @param historyResponsesMode
+     *            the user responses mode of the history documents of the form
+     * @param questionSelection
+     *            the indexed questions of the form, giving the questions kept in SUBSET mode
+     * @return the user responses of the history documents, null in REFERENCE mode
+     */
+    private static Map<String, Object> getHistoryUserResponses( Map<String, Object> mapUserResponses, HistoryResponsesMode historyResponsesMode,
+            OptionalQuestionSelection questionSelection )
+    {
+        switch( historyResponsesMode )
+        {
+            case REFERENCE:
+                return null;
+            case SUBSET:
+                Map<String, Object> mapHistoryUserResponses = new HashMap<>( );
+                for ( Map.Entry<String, Object> entry : mapUserResponses.entrySet( ) )
+                {
+                    // the keys are prefixed with the question id
+                    String strIdQuestion = StringUtils.substringBefore( entry.getKey( ), "." );
+                    if ( StringUtils.isNumeric( strIdQuestion ) && questionSelection.isIndexedInHistory( Integer.parseInt( strIdQuestion ) ) )
+                    {
+                        mapHistoryUserResponses.put( entry.getKey( ), entry.getValue( ) );
+                    }
+                }
+                return mapHistoryUserResponses;
+            default:
+                return mapUserResponses;
+        }
+    }
+
     /**
      * return a list of ressource history data object according to a list of form responses
      * 
      * @param formResponseDataObject
      *            the form response data object
+     * @param mapHistoryUserResponses
+     *            the user responses carried by the history documents
      * @param listResourceHistoryFiltred
      *            the list of ressource history
      * @param formResponseDateCreation
      *            the form response date creation
-     * @param listActions
-     *            the list of actions
-     * @param listStates
-     *            the list of states
+     * @param workflowMetadata
+     *            the states and actions of the form workflow
+     * @param nLastIndexedIdHistory
+     *            the id of the last ressource history already indexed, 0 to build them all
      * @return list of ressource history data object
      */
-    private List<FormResponseDataObject> getFormResponseHistory( FormResponseDataObject formResponseDataObject,
-            List<ResourceHistory> listResourceHistoryFiltred, Timestamp formResponseDateCreation, List<Action> listActions, List<State> listStates )
+    List<FormResponseDataObject> getFormResponseHistory( FormResponseDataObject formResponseDataObject, Map<String, Object> mapHistoryUserResponses,
+            List<ResourceHistory> listResourceHistoryFiltred, Timestamp formResponseDateCreation, WorkflowMetadata workflowMetadata,
+            int nLastIndexedIdHistory )
     {
         Timestamp lstartingDateDuration = formResponseDateCreation;
         List<FormResponseDataObject> formResponseDataObjectList = new ArrayList<>( );
         for ( ResourceHistory resourceHistory : listResourceHistoryFiltred )
         {
+            if ( resourceHistory.getId( ) <= nLastIndexedIdHistory )
+            {
+                // already indexed, only the starting date of the next task duration is needed
+                lstartingDateDuration = resourceHistory.getCreationDate( );
+                continue;
+            }
             long lTaskDuration = duration( lstartingDateDuration, resourceHistory.getCreationDate( ) );
             long lCompleteDuration = duration( formResponseDateCreation, resourceHistory.getCreationDate( ) );
             FormResponseDataObject FormResponseHistoryDataObject = new FormResponseDataObject( );
-            FormResponseHistoryDataObject.setId( DOCUMENT_TYPE_NAME_FORM_RESPONSE_HISTORY + "_" + resourceHistory.getId( ) );
+            FormResponseHistoryDataObject.setId( getHistoryDocumentId( resourceHistory.getId( ) ) );
             FormResponseHistoryDataObject.setFormName( formResponseDataObject.getFormName( ) );
             FormResponseHistoryDataObject.setFormId( formResponseDataObject.getFormId( ) );
             FormResponseHistoryDataObject.setFormResponseId( formResponseDataObject.getFormResponseId( ) );
@@ -285,17 +726,12 @@ public class FormsDataSource extends AbstractDataSource
             FormResponseHistoryDataObject.setParentId( String.valueOf( resourceHistory.getWorkflow( ).getId( ) ) );
             FormResponseHistoryDataObject.setDocumentTypeName( DOCUMENT_TYPE_NAME_FORM_RESPONSE_HISTORY );
             FormResponseHistoryDataObject.setCompleteDuration( lCompleteDuration );
-            FormResponseHistoryDataObject.setUserResponses( formResponseDataObject.getUserResponses( ) );
+            FormResponseHistoryDataObject.setUserResponses( mapHistoryUserResponses );
             FormResponseHistoryDataObject.setWorflowAdminCreator( resourceHistory.getUserAccessCode( ) );
-            Action action = listActions.stream( ).filter( action2 -> action2.getId( ) == resourceHistory.getAction( ).getId( ) ).findFirst( ).orElse( null );
-            if ( action != null )
+            State stateFormResponse = workflowMetadata.getStateAfter( resourceHistory.getAction( ).getId( ) );
+            if ( stateFormResponse != null )
             {
-                State stateFormResponse = listStates.stream( ).filter( state2 -> state2.getId( ) == action.getStateAfter( ).getId( ) ).findFirst( )
-                        .orElse( null );
-                if ( stateFormResponse != null )
-                {
-                    FormResponseHistoryDataObject.setWorkflowState( stateFormResponse.getName( ) );
-                }
+                FormResponseHistoryDataObject.setWorkflowState( stateFormResponse.getName( ) );
             }
             lstartingDateDuration = resourceHistory.getCreationDate( );
             formResponseDataObjectList.add( FormResponseHistoryDataObject );
@@ -305,116 +741,72 @@ public class FormsDataSource extends AbstractDataSource
     }
 
     /**
-     * return a list of ressource history according to a list of form response id
+     * return the ressource history of a batch of form responses, read in a single query for all the workflows of the batch. Only the history of the
+     * current workflow of the form of each response is kept.
      * 
-     * @param listIdDataObjects
-     *            the list of form response id
-     * @param nIdWorkflow
-     *            the form workflow id
-     * @return list of ressource history
+     * @param listFormResponse
+     *            the form responses of the batch
+     * @param mapForms
+     *            the forms of the batch, by id
+     * @return the ressource history ordered by creation date, by form response id
      */
-    private List<ResourceHistory> getResourceHistoryList( List<Integer> listIdDataObjects, int nIdWorkflow )
+    private Map<Integer, List<ResourceHistory>> getResourceHistoryByFormResponse( List<FormResponse> listFormResponse, Map<Integer, Form> mapForms )
     {
-        ResourceHistoryFilter filter = new ResourceHistoryFilter( );
-        filter.setListIdResources( listIdDataObjects );
-        filter.setResourceType( RESSOURCE_TYPE );
-        filter.setIdWorkflow( nIdWorkflow );
-        return _resourceHistoryService.getAllHistoryByFilter( filter ).stream( ).sorted( Comparator.comparing( ResourceHistory::getCreationDate ) )
-                .collect( Collectors.toList( ) );
-    }
-
-    /**
-     * return a list of states according to workflow id
-     * 
-     * @param nIdWorkflow
-     *            the workflow id
-     * @return list of states
-     */
-    private List<State> getStateList( int nIdWorkflow )
-    {
-        StateFilter stateFilter = new StateFilter( );
-        stateFilter.setIdWorkflow( nIdWorkflow );
-        return _stateService.getListStateByFilter( stateFilter );
-    }
+        Map<Integer, Integer> mapIdWorkflowByFormResponse = new HashMap<>( );
+        for ( FormResponse formResponse : listFormResponse )
+        {
+            Form form = mapForms.get( formResponse.getFormId( ) );
+            if ( form != null && form.getIdWorkflow( ) > 0 )
+            {
+                mapIdWorkflowByFormResponse.put( formResponse.getId( ), form.getIdWorkflow( ) );
+            }
+        }
+        List<Integer> listIdWorkflow = mapIdWorkflowByFormResponse.values( ).stream( ).distinct( ).collect( Collectors.toList( ) );
+        List<ResourceHistory> listResourceHistory = ResourceHistoryIndexationHome
+                .getResourceHistoryList( new ArrayList<>( mapIdWorkflowByFormResponse.keySet( ) ), listIdWorkflow, RESSOURCE_TYPE );
 
-    /**
-     * return a list of actions according to workflow id
-     * 
-     * @param nIdWorkflow
-     *            the workflow id
-     * @return list of actions
-     */
-    private List<Action> getActionList( int nIdWorkflow )
-    {
-        ActionFilter actionFilter = new ActionFilter( );
-        actionFilter.setIdWorkflow( nIdWorkflow );
-        actionFilter.setAutomaticReflexiveAction( false );
-        return _actionService.getListActionByFilter( actionFilter );
+        // the rows are ordered by resource id then creation date, so a single pass keeps each list ordered
+        Map<Integer, List<ResourceHistory>> mapResourceHistory = new HashMap<>( );
+        for ( ResourceHistory resourceHistory : listResourceHistory )
+        {
+            Integer nIdWorkflow = mapIdWorkflowByFormResponse.get( resourceHistory.getIdResource( ) );
+            if ( nIdWorkflow != null && nIdWorkflow == resourceHistory.getWorkflow( ).getId( ) )
+            {
+                mapResourceHistory.computeIfAbsent( resourceHistory.getIdResource( ), k -> new ArrayList<>( ) ).add( resourceHistory );
+            }
+        }
+        return mapResourceHistory;
     }
 
     /**
-     * Sets the user responses based on the form response data, form question responses, and a list of questions.
+     * Sets the user responses of a document from its form question responses, using the compiled schema of the form.
      *
      * @param formResponseDataObject
      *            The form response data object.
      * @param formQuestionResponseList
      *            The list of form question responses.
-     * @param listQuestion
-     *            The list of questions.
+     * @param schema
+     *            The compiled schema of the form.
      */
-    private void setUserResponses( FormResponseDataObject formResponseDataObject, List<FormQuestionResponse> formQuestionResponseList,
-            List<Question> listQuestion )
+    static void setUserResponses( FormResponseDataObject formResponseDataObject, List<FormQuestionResponse> formQuestionResponseList,
+            FormSchema schema )
     {
         Map<String, Object> userResponses = new HashMap<>( );
 
-        formQuestionResponseList.forEach( formQuestionResponse -> listQuestion.stream( )
-                .filter( question -> question.getId( ) == formQuestionResponse.getQuestion( ).getId( ) ).findFirst( ).ifPresent( question -> {
-                    String baseKey = question.getId( ) + "." + StringUtils.abbreviate( question.getTitle( ), 100 );
-
-                    if ( !formQuestionResponse.getEntryResponse( ).isEmpty( ) )
-                    {
-                        IEntryTypeService entryTypeService = EntryTypeServiceManager
-                                .getEntryTypeService( formQuestionResponse.getEntryResponse( ).get( 0 ).getEntry( ) );
-
-                        if ( entryTypeService instanceof EntryTypeCheckBox )
-                        {
-                            List<String> responses = formQuestionResponse.getEntryResponse( ).stream( ).map( Response::getResponseValue )
-                                    .collect( Collectors.toList( ) );
-                            userResponses.put( baseKey, responses );
-                        }
-                        else
-                            if ( entryTypeService instanceof EntryTypeSelectOrder )
-                            {
-                                List<String> responses = formQuestionResponse.getEntryResponse( ).stream( )
-                                        .sorted( Comparator.comparing( Response::getSortOrder ) ).map( Response::getResponseValue )
-                                        .collect( Collectors.toList( ) );
-                                userResponses.put( baseKey, responses );
-                            }
-                            else
-                                if ( entryTypeService instanceof EntryTypeGeolocation )
-                                {
-                                    Map<String, String> responses = formQuestionResponse.getEntryResponse( ).stream( ).collect( HashMap::new,
-                                            ( map, response ) -> {
-                                                Integer idField = response.getField( ).getIdField( );
-                                                String fieldCode = getFieldCode( idField );
-
-                                                if ( fieldCode != null )
-                                                {
-                                                    map.put( fieldCode, response.getResponseValue( ) );
-                                                }
-                                                else
-                                                {
-                                                    map.put( String.valueOf( idField ), response.getResponseValue( ) );
-                                                }
-                                            }, HashMap::putAll );
-                                    userResponses.put( baseKey, responses );
-                                }
-                                else
-                                {
-                                    formQuestionResponse.getEntryResponse( ).forEach( response -> userResponses.put( baseKey, response.getResponseValue( ) ) );
-                                }
-                    }
-                } ) );
+        for ( FormQuestionResponse formQuestionResponse : formQuestionResponseList )
+        {
+            QuestionSchema question = schema.getQuestion( formQuestionResponse.getQuestion( ).getId( ) );
+            List<Response> listResponse = formQuestionResponse.getEntryResponse( );
+            if ( question == null || listResponse.isEmpty( ) )
+            {
+                continue;
+            }
+            Object value = question.getSerializer( ).serialize( listResponse, schema );
+            if ( value != null )
+            {
+                userResponses.put( question.getKey( ), value );
+            }
+        }
 
         formResponseDataObject.setUserResponses( userResponses );
     }
@@ -432,6 +824,18 @@ public class FormsDataSource extends AbstractDataSource
         DataSourceIncrementalService.addTask( DATA_SOURCE_NAME, String.valueOf( nIdResource ), nIdTask );
     }
 
+    /**
+     * Returns the id of the formResponseHistory document of a resource history
+     * 
+     * @param nIdHistory
+     *            the resource history id
+     * @return the document id
+     */
+    public static String getHistoryDocumentId( int nIdHistory )
+    {
+        return DOCUMENT_TYPE_NAME_FORM_RESPONSE_HISTORY + "_" + nIdHistory;
+    }
+
     /**
      * return The duration in milliseconds
      * 
@@ -451,27 +855,15 @@ public class FormsDataSource extends AbstractDataSource
     /**
      * Retrieves the field code for the specified field ID.
      *
+     * @param nIdForm
+     *            The ID of the form of the field.
      * @param nIdField
      *            The ID of the field.
      * @return The field code associated with the specified ID, or null if not found.
      */
-    public String getFieldCode( int nIdField )
+    public String getFieldCode( int nIdForm, int nIdField )
     {
-        if ( _mapFields.isEmpty( ) )
-        {
-
-            List<Form> listForms = FormHome.getFormList( );
-
-            Map<Integer, String> mapIdEntry = new HashMap<>( );
-            for ( Form form : listForms )
-            {
-                mapIdEntry.putAll( EntryHome.findEntryByForm( GenericAttributesUtils.getPlugin( ), form.getId( ) ) );
-            }
-            List<Integer> listIdEntry = mapIdEntry.keySet( ).stream( ).collect( Collectors.toList( ) );
-            _mapFields = FieldHome.getFieldListByListIdEntry( listIdEntry ).stream( ).collect( Collectors.toMap( Field::getIdField, Field::getCode ) );
-        }
-
-        return _mapFields.get( nIdField );
+        return _cacheService.getFieldCodes( nIdForm ).get( nIdField );
     }
 
-}
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import java.util.List;
+
+/**
+ * IFormResponseIdDAO Interface
+ */
+public interface IFormResponseIdDAO
+{
+    /**
+     * Load a page of form response ids, ordered by id, starting strictly after the given id
+     * 
+     * @param nLastIdFormResponse
+     *            the last id of the previous page (0 for the first page)
+     * @param nLimit
+     *            the maximum number of ids to load
+     * @param plugin
+     *            the Plugin
+     * @return the list of form response ids
+     */
+    List<Integer> selectIdFormResponsesAfter( int nLastIdFormResponse, int nLimit, Plugin plugin );
+
+    /**
+     * Load a page of the form response ids matching a filter, ordered by id, starting strictly after the given id
+     * 
+     * @param nLastIdFormResponse
+     *            the last id of the previous page (0 for the first page)
+     * @param filter
+     *            the filter
+     * @param nLimit
+     *            the maximum number of ids to load
+     * @param plugin
+     *            the Plugin
+     * @return the list of form response ids
+     */
+    List<Integer> selectIdFormResponsesAfter( int nLastIdFormResponse, FormResponseIdFilter filter, int nLimit, Plugin plugin );
+
+    /**
+     * Count the form responses matching a filter
+     * 
+     * @param filter
+     *            the filter
+     * @param plugin
+     *            the Plugin
+     * @return the number of form responses
+     */
+    int countFormResponses( FormResponseIdFilter filter, Plugin plugin );
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.sql.Timestamp;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+/**
+ * IIndexingLockDAO Interface
+ */
+public interface IIndexingLockDAO
+{
+    /**
+     * Insert a free lock
+     * 
+     * @param strName
+     *            the lock name
+     * @param plugin
+     *            the Plugin
+     */
+    void insert( String strName, Plugin plugin );
+
+    /**
+     * Take the lock if it is free, already held by the owner, or if the heartbeat of its owner is older than a date
+     * 
+     * @param strName
+     *            the lock name
+     * @param strOwner
+     *            the owner
+     * @param dateNow
+     *            the heartbeat date
+     * @param dateStaleBefore
+     *            the date before which the lock of another owner is considered abandoned
+     * @param plugin
+     *            the Plugin
+     */
+    void acquire( String strName, String strOwner, Timestamp dateNow, Timestamp dateStaleBefore, Plugin plugin );
+
+    /**
+     * Update the heartbeat date of a lock held by an owner
+     * 
+     * @param strName
+     *            the lock name
+     * @param strOwner
+     *            the owner
+     * @param dateNow
+     *            the heartbeat date
+     * @param plugin
+     *            the Plugin
+     */
+    void heartbeat( String strName, String strOwner, Timestamp dateNow, Plugin plugin );
+
+    /**
+     * Free a lock held by an owner
+     * 
+     * @param strName
+     *            the lock name
+     * @param strOwner
+     *            the owner
+     * @param plugin
+     *            the Plugin
+     */
+    void release( String strName, String strOwner, Plugin plugin );
+
+    ///////////////////////////////////////////////////////////////////////////
+    // Finders
+
+    /**
+     * Load a lock
+     * 
+     * @param strName
+     *            the lock name
+     * @param plugin
+     *            the Plugin
+     * @return the lock, or null if it does not exist
+     */
+    IndexingLock load( String strName, Plugin plugin );
+}
@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import java.util.List;
+import java.util.Set;
 
 /**
  * IOptionalQuestionIndexationDAO Interface
@@ -123,4 +124,49 @@ public interface IOptionalQuestionIndexationDAO
      */
     List<Integer> selectIdOptionalQuestionIndexationsList( Plugin plugin );
 
+    /**
+     * Replace the indexed questions of a form: the questions that are no longer selected are deleted and the new ones are inserted, with JDBC
+     * batches
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param setIdQuestion
+     *            the ids of the selected questions
+     * @param plugin
+     *            the Plugin
+     */
+    void replaceQuestionsForForm( int nIdForm, Set<Integer> setIdQuestion, Plugin plugin );
+
+    /**
+     * Set the indexed questions of a form that are also indexed in the history documents
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param setIdHistoryQuestion
+     *            the ids of the questions indexed in the history documents
+     * @param plugin
+     *            the Plugin
+     */
+    void updateHistoryQuestionsForForm( int nIdForm, Set<Integer> setIdHistoryQuestion, Plugin plugin );
+
+    /**
+     * Load the version of the indexed questions of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the Plugin
+     * @return the version, 0 if the indexed questions of the form have never been modified
+     */
+    int selectVersion( int nIdForm, Plugin plugin );
+
+    /**
+     * Increment the version of the indexed questions of a form, creating it when the form has no version yet. To be called in a transaction.
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param plugin
+     *            the Plugin
+     */
+    void incrementVersion( int nIdForm, Plugin plugin );
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.plugins.workflowcore.business.resource.ResourceHistory;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * IResourceHistoryIndexationDAO Interface
+ */
+public interface IResourceHistoryIndexationDAO
+{
+    /**
+     * Load the resource history of a list of resources for a list of workflows, ordered by resource id then creation date
+     * 
+     * @param listIdResource
+     *            the resource ids
+     * @param listIdWorkflow
+     *            the workflow ids
+     * @param strResourceType
+     *            the resource type
+     * @param plugin
+     *            the Plugin
+     * @return the list of resource history
+     */
+    List<ResourceHistory> selectByResourcesAndWorkflows( List<Integer> listIdResource, List<Integer> listIdWorkflow, String strResourceType,
+            Plugin plugin );
+
+    /**
+     * Load the resource history created after a given history id, ordered by id
+     * 
+     * @param nLastIdHistory
+     *            the last history id already processed
+     * @param strResourceType
+     *            the resource type
+     * @param nLimit
+     *            the maximum number of rows to load
+     * @param plugin
+     *            the Plugin
+     * @return the list of resource history
+     */
+    List<ResourceHistory> selectAfter( int nLastIdHistory, String strResourceType, int nLimit, Plugin plugin );
+
+    /**
+     * Load the resource history of a range of history ids created since a given date, ordered by id
+     * 
+     * @param nFromIdHistory
+     *            the lower bound of the history ids, excluded
+     * @param nToIdHistory
+     *            the upper bound of the history ids, included
+     * @param dateFrom
+     *            the minimum creation date
+     * @param strResourceType
+     *            the resource type
+     * @param plugin
+     *            the Plugin
+     * @return the list of resource history
+     */
+    List<ResourceHistory> selectCreatedSince( int nFromIdHistory, int nToIdHistory, Timestamp dateFrom, String strResourceType, Plugin plugin );
+
+    /**
+     * Load the greatest history id of a resource type
+     * 
+     * @param strResourceType
+     *            the resource type
+     * @param plugin
+     *            the Plugin
+     * @return the greatest history id, 0 if there is none
+     */
+    int selectMaxIdHistory( String strResourceType, Plugin plugin );
+}
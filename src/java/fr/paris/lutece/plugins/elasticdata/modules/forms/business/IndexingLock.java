@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * This is the business class for the object IndexingLock: a lock shared by the nodes of the cluster, held by the node running an indexing job
+ */
+public class IndexingLock implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    // Variables declarations
+    private String _strName;
+    private String _strOwner;
+    private Timestamp _dateHeartbeat;
+
+    /**
+     * Returns the lock name
+     * 
+     * @return The lock name
+     */
+    public String getName( )
+    {
+        return _strName;
+    }
+
+    /**
+     * Sets the lock name
+     * 
+     * @param strName
+     *            The lock name
+     */
+    public void setName( String strName )
+    {
+        _strName = strName;
+    }
+
+    /**
+     * Returns the node holding the lock
+     * 
+     * @return The owner, or null if the lock is free
+     */
+    public String getOwner( )
+    {
+        return _strOwner;
+    }
+
+    /**
+     * Sets the node holding the lock
+     * 
+     * @param strOwner
+     *            The owner
+     */
+    public void setOwner( String strOwner )
+    {
+        _strOwner = strOwner;
+    }
+
+    /**
+     * Returns the date of the last heartbeat of the owner
+     * 
+     * @return The heartbeat date
+     */
+    public Timestamp getHeartbeat( )
+    {
+        return _dateHeartbeat;
+    }
+
+    /**
+     * Sets the date of the last heartbeat of the owner
+     * 
+     * @param dateHeartbeat
+     *            The heartbeat date
+     */
+    public void setHeartbeat( Timestamp dateHeartbeat )
+    {
+        _dateHeartbeat = dateHeartbeat;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.sql.Timestamp;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * This class provides Data Access methods for IndexingLock objects
+ */
+@ApplicationScoped
+public final class IndexingLockDAO implements IIndexingLockDAO
+{
+    // Constants
+    private static final String SQL_QUERY_SELECT = "SELECT lock_name, owner, heartbeat_date FROM elasticdata_forms_indexing_lock WHERE lock_name = ?";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO elasticdata_forms_indexing_lock ( lock_name ) VALUES ( ? ) ";
+    private static final String SQL_QUERY_ACQUIRE = "UPDATE elasticdata_forms_indexing_lock SET owner = ?, heartbeat_date = ? "
+            + " WHERE lock_name = ? AND ( owner IS NULL OR owner = ? OR heartbeat_date < ? )";
+    private static final String SQL_QUERY_HEARTBEAT = "UPDATE elasticdata_forms_indexing_lock SET heartbeat_date = ? WHERE lock_name = ? AND owner = ?";
+    private static final String SQL_QUERY_RELEASE = "UPDATE elasticdata_forms_indexing_lock SET owner = NULL, heartbeat_date = NULL WHERE lock_name = ? AND owner = ?";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insert( String strName, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin ) )
+        {
+            daoUtil.setString( 1, strName );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void acquire( String strName, String strOwner, Timestamp dateNow, Timestamp dateStaleBefore, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_ACQUIRE, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, strOwner );
+            daoUtil.setTimestamp( nIndex++, dateNow );
+            daoUtil.setString( nIndex++, strName );
+            daoUtil.setString( nIndex++, strOwner );
+            daoUtil.setTimestamp( nIndex, dateStaleBefore );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void heartbeat( String strName, String strOwner, Timestamp dateNow, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_HEARTBEAT, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setTimestamp( nIndex++, dateNow );
+            daoUtil.setString( nIndex++, strName );
+            daoUtil.setString( nIndex, strOwner );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void release( String strName, String strOwner, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_RELEASE, plugin ) )
+        {
+            daoUtil.setString( 1, strName );
+            daoUtil.setString( 2, strOwner );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public IndexingLock load( String strName, Plugin plugin )
+    {
+        IndexingLock lock = null;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        {
+            daoUtil.setString( 1, strName );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                lock = new IndexingLock( );
+                int nIndex = 1;
+                lock.setName( daoUtil.getString( nIndex++ ) );
+                lock.setOwner( daoUtil.getString( nIndex++ ) );
+                lock.setHeartbeat( daoUtil.getTimestamp( nIndex ) );
+            }
+        }
+        return lock;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.sql.Timestamp;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import jakarta.enterprise.inject.spi.CDI;
+
+/**
+ * This class provides instances management methods for the locks shared by the nodes of the cluster. The owner of a lock must refresh its heartbeat;
+ * a lock whose heartbeat is older than its time to live is considered abandoned and can be taken by another node.
+ */
+public final class IndexingLockHome
+{
+    // Static variable pointed at the DAO instance
+    private static IIndexingLockDAO _dao = CDI.current( ).select( IIndexingLockDAO.class ).get( );
+    private static Plugin _plugin = PluginService.getPlugin( "elasticdata-forms" );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private IndexingLockHome( )
+    {
+    }
+
+    /**
+     * Try to take a lock
+     * 
+     * @param strName
+     *            the lock name
+     * @param strOwner
+     *            the owner
+     * @param lTimeToLive
+     *            the time in milliseconds after which the lock of an owner without heartbeat is considered abandoned
+     * @return true if the lock is now held by the owner
+     */
+    public static boolean tryAcquire( String strName, String strOwner, long lTimeToLive )
+    {
+        if ( _dao.load( strName, _plugin ) == null )
+        {
+            _dao.insert( strName, _plugin );
+        }
+        long lNow = System.currentTimeMillis( );
+        _dao.acquire( strName, strOwner, new Timestamp( lNow ), new Timestamp( lNow - lTimeToLive ), _plugin );
+        return isOwner( strName, strOwner );
+    }
+
+    /**
+     * Refresh the heartbeat of a lock
+     * 
+     * @param strName
+     *            the lock name
+     * @param strOwner
+     *            the owner
+     * @return true if the lock is still held by the owner
+     */
+    public static boolean refresh( String strName, String strOwner )
+    {
+        _dao.heartbeat( strName, strOwner, new Timestamp( System.currentTimeMillis( ) ), _plugin );
+        return isOwner( strName, strOwner );
+    }
+
+    /**
+     * Free a lock held by an owner
+     * 
+     * @param strName
+     *            the lock name
+     * @param strOwner
+     *            the owner
+     */
+    public static void release( String strName, String strOwner )
+    {
+        _dao.release( strName, strOwner, _plugin );
+    }
+
+    /**
+     * Returns a lock
+     * 
+     * @param strName
+     *            the lock name
+     * @return the lock, or null if it has never been taken
+     */
+    public static IndexingLock findByName( String strName )
+    {
+        return _dao.load( strName, _plugin );
+    }
+
+    /**
+     * Returns true if a lock is held by an owner
+     * 
+     * @param strName
+     *            the lock name
+     * @param strOwner
+     *            the owner
+     * @return true if the owner holds the lock
+     */
+    private static boolean isOwner( String strName, String strOwner )
+    {
+        IndexingLock lock = _dao.load( strName, _plugin );
+        return lock != null && strOwner.equals( lock.getOwner( ) );
+    }
+}
@@ -49,6 +49,8 @@ public class OptionalQuestionIndexation implements Serializable
 
     private int _nIdQuestion;
 
+    private boolean _bIndexedInHistory;
+
     /**
      * Returns the Id
      * 
@@ -112,4 +114,25 @@ public class OptionalQuestionIndexation implements Serializable
         _nIdQuestion = nIdQuestion;
     }
 
+    /**
+     * Returns true if the question is copied in the formResponseHistory documents when the form uses the subset mode
+     * 
+     * @return true if the question is indexed in the history documents
+     */
+    public boolean isIndexedInHistory( )
+    {
+        return _bIndexedInHistory;
+    }
+
+    /**
+     * Sets whether the question is copied in the formResponseHistory documents when the form uses the subset mode
+     * 
+     * @param bIndexedInHistory
+     *            true if the question is indexed in the history documents
+     */
+    public void setIndexedInHistory( boolean bIndexedInHistory )
+    {
+        _bIndexedInHistory = bIndexedInHistory;
+    }
+
 }
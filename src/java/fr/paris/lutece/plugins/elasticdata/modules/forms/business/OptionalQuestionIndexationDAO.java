@@ -39,7 +39,11 @@ import jakarta.enterprise.context.ApplicationScoped;
 
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * This class provides Data Access methods for OptionalQuestionIndexation objects
@@ -48,14 +52,22 @@ import java.util.List;
 public final class OptionalQuestionIndexationDAO implements IOptionalQuestionIndexationDAO
 {
     // Constants
-    private static final String SQL_QUERY_SELECT = "SELECT id_optional_question_indexation, id_form, id_question FROM elasticdata_forms_optionalquestionresponse WHERE id_optional_question_indexation = ?";
-    private static final String SQL_QUERY_INSERT = "INSERT INTO elasticdata_forms_optionalquestionresponse ( id_form, id_question ) VALUES ( ?, ? ) ";
+    private static final String SQL_QUERY_SELECT = "SELECT id_optional_question_indexation, id_form, id_question, indexed_in_history FROM elasticdata_forms_optionalquestionresponse WHERE id_optional_question_indexation = ?";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO elasticdata_forms_optionalquestionresponse ( id_form, id_question, indexed_in_history ) VALUES ( ?, ?, ? ) ";
     private static final String SQL_QUERY_DELETE = "DELETE FROM elasticdata_forms_optionalquestionresponse WHERE id_optional_question_indexation = ? ";
-    private static final String SQL_QUERY_UPDATE = "UPDATE elasticdata_forms_optionalquestionresponse SET id_optional_question_indexation = ?, id_form = ?, id_question = ? WHERE id_optional_question_indexation = ?";
-    private static final String SQL_QUERY_SELECTALL = "SELECT id_optional_question_indexation, id_form, id_question FROM elasticdata_forms_optionalquestionresponse";
+    private static final String SQL_QUERY_UPDATE = "UPDATE elasticdata_forms_optionalquestionresponse SET id_optional_question_indexation = ?, id_form = ?, id_question = ?, indexed_in_history = ? WHERE id_optional_question_indexation = ?";
+    private static final String SQL_QUERY_SELECTALL = "SELECT id_optional_question_indexation, id_form, id_question, indexed_in_history FROM elasticdata_forms_optionalquestionresponse";
     private static final String SQL_QUERY_SELECTALL_ID = "SELECT id_optional_question_indexation FROM elasticdata_forms_optionalquestionresponse";
-    private static final String SQL_QUERY_SELECTALL_BY_FORM_ID = "SELECT id_optional_question_indexation, id_form, id_question FROM elasticdata_forms_optionalquestionresponse WHERE id_form = ?";
-    private static final String SQL_QUERY_SELECT_BY_QUESTION_ID = "SELECT id_optional_question_indexation, id_form, id_question FROM elasticdata_forms_optionalquestionresponse WHERE id_question = ?";
+    private static final String SQL_QUERY_SELECTALL_BY_FORM_ID = "SELECT id_optional_question_indexation, id_form, id_question, indexed_in_history FROM elasticdata_forms_optionalquestionresponse WHERE id_form = ?";
+    private static final String SQL_QUERY_SELECT_ID_QUESTION_BY_FORM_ID = "SELECT id_question FROM elasticdata_forms_optionalquestionresponse WHERE id_form = ?";
+    private static final String SQL_QUERY_INSERT_QUESTION = "INSERT INTO elasticdata_forms_optionalquestionresponse ( id_form, id_question, indexed_in_history ) VALUES ( ?, ?, 0 ) ";
+    private static final String SQL_QUERY_DELETE_QUESTION = "DELETE FROM elasticdata_forms_optionalquestionresponse WHERE id_form = ? AND id_question = ? ";
+    private static final String SQL_QUERY_RESET_HISTORY_BY_FORM_ID = "UPDATE elasticdata_forms_optionalquestionresponse SET indexed_in_history = 0 WHERE id_form = ?";
+    private static final String SQL_QUERY_SET_HISTORY_QUESTION = "UPDATE elasticdata_forms_optionalquestionresponse SET indexed_in_history = 1 WHERE id_form = ? AND id_question = ?";
+    private static final String SQL_QUERY_SELECT_VERSION = "SELECT version FROM elasticdata_forms_optionalquestion_version WHERE id_form = ?";
+    private static final String SQL_QUERY_INSERT_VERSION = "INSERT INTO elasticdata_forms_optionalquestion_version ( id_form, version ) VALUES ( ?, 1 ) ";
+    private static final String SQL_QUERY_INCREMENT_VERSION = "UPDATE elasticdata_forms_optionalquestion_version SET version = version + 1 WHERE id_form = ?";
+    private static final String SQL_QUERY_SELECT_BY_QUESTION_ID = "SELECT id_optional_question_indexation, id_form, id_question, indexed_in_history FROM elasticdata_forms_optionalquestionresponse WHERE id_question = ?";
 
     /**
      * {@inheritDoc }
@@ -68,6 +80,7 @@ public final class OptionalQuestionIndexationDAO implements IOptionalQuestionInd
             int nIndex = 1;
             daoUtil.setInt( nIndex++, optionalQuestionIndexation.getIdForm( ) );
             daoUtil.setInt( nIndex++, optionalQuestionIndexation.getIdQuestion( ) );
+            daoUtil.setBoolean( nIndex, optionalQuestionIndexation.isIndexedInHistory( ) );
             daoUtil.executeUpdate( );
             if ( daoUtil.nextGeneratedKey( ) )
             {
@@ -94,6 +107,7 @@ public final class OptionalQuestionIndexationDAO implements IOptionalQuestionInd
                 optionalQuestionIndexation.setId( daoUtil.getInt( nIndex++ ) );
                 optionalQuestionIndexation.setIdForm( daoUtil.getInt( nIndex++ ) );
                 optionalQuestionIndexation.setIdQuestion( daoUtil.getInt( nIndex++ ) );
+                optionalQuestionIndexation.setIndexedInHistory( daoUtil.getBoolean( nIndex ) );
             }
         }
         return optionalQuestionIndexation;
@@ -116,6 +130,7 @@ public final class OptionalQuestionIndexationDAO implements IOptionalQuestionInd
                 optionalQuestionIndexation.setId( daoUtil.getInt( nIndex++ ) );
                 optionalQuestionIndexation.setIdForm( daoUtil.getInt( nIndex++ ) );
                 optionalQuestionIndexation.setIdQuestion( daoUtil.getInt( nIndex++ ) );
+                optionalQuestionIndexation.setIndexedInHistory( daoUtil.getBoolean( nIndex ) );
             }
         }
         return optionalQuestionIndexation;
@@ -146,6 +161,7 @@ public final class OptionalQuestionIndexationDAO implements IOptionalQuestionInd
             daoUtil.setInt( nIndex++, optionalQuestionIndexation.getId( ) );
             daoUtil.setInt( nIndex++, optionalQuestionIndexation.getIdForm( ) );
             daoUtil.setInt( nIndex++, optionalQuestionIndexation.getIdQuestion( ) );
+            daoUtil.setBoolean( nIndex++, optionalQuestionIndexation.isIndexedInHistory( ) );
             daoUtil.setInt( nIndex, optionalQuestionIndexation.getId( ) );
             daoUtil.executeUpdate( );
         }
@@ -168,6 +184,7 @@ public final class OptionalQuestionIndexationDAO implements IOptionalQuestionInd
                 optionalQuestionIndexation.setId( daoUtil.getInt( nIndex++ ) );
                 optionalQuestionIndexation.setIdForm( daoUtil.getInt( nIndex++ ) );
                 optionalQuestionIndexation.setIdQuestion( daoUtil.getInt( nIndex++ ) );
+                optionalQuestionIndexation.setIndexedInHistory( daoUtil.getBoolean( nIndex ) );
                 optionalQuestionIndexationList.add( optionalQuestionIndexation );
             }
         }
@@ -192,6 +209,7 @@ public final class OptionalQuestionIndexationDAO implements IOptionalQuestionInd
                 optionalQuestionIndexation.setId( daoUtil.getInt( nIndex++ ) );
                 optionalQuestionIndexation.setIdForm( daoUtil.getInt( nIndex++ ) );
                 optionalQuestionIndexation.setIdQuestion( daoUtil.getInt( nIndex++ ) );
+                optionalQuestionIndexation.setIndexedInHistory( daoUtil.getBoolean( nIndex ) );
                 optionalQuestionIndexationList.add( optionalQuestionIndexation );
             }
         }
@@ -215,4 +233,115 @@ public final class OptionalQuestionIndexationDAO implements IOptionalQuestionInd
         }
         return optionalQuestionIndexationList;
     }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void replaceQuestionsForForm( int nIdForm, Set<Integer> setIdQuestion, Plugin plugin )
+    {
+        Set<Integer> setCurrentIdQuestion = new HashSet<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_ID_QUESTION_BY_FORM_ID, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                setCurrentIdQuestion.add( daoUtil.getInt( 1 ) );
+            }
+        }
+
+        List<Integer> listRemoved = setCurrentIdQuestion.stream( ).filter( nIdQuestion -> !setIdQuestion.contains( nIdQuestion ) )
+                .collect( Collectors.toList( ) );
+        List<Integer> listAdded = setIdQuestion.stream( ).filter( nIdQuestion -> !setCurrentIdQuestion.contains( nIdQuestion ) )
+                .collect( Collectors.toList( ) );
+        executeBatch( SQL_QUERY_DELETE_QUESTION, nIdForm, listRemoved, plugin );
+        executeBatch( SQL_QUERY_INSERT_QUESTION, nIdForm, listAdded, plugin );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void updateHistoryQuestionsForForm( int nIdForm, Set<Integer> setIdHistoryQuestion, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_RESET_HISTORY_BY_FORM_ID, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeUpdate( );
+        }
+        executeBatch( SQL_QUERY_SET_HISTORY_QUESTION, nIdForm, setIdHistoryQuestion, plugin );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int selectVersion( int nIdForm, Plugin plugin )
+    {
+        int nVersion = 0;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_VERSION, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nVersion = daoUtil.getInt( 1 );
+            }
+        }
+        return nVersion;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void incrementVersion( int nIdForm, Plugin plugin )
+    {
+        // the increment is done by the database, the row is only created when there is none yet
+        int nUpdated;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INCREMENT_VERSION, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdForm );
+            nUpdated = daoUtil.executeUpdate( );
+        }
+        if ( nUpdated == 0 )
+        {
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT_VERSION, plugin ) )
+            {
+                daoUtil.setInt( 1, nIdForm );
+                daoUtil.executeUpdate( );
+            }
+        }
+    }
+
+    /**
+     * Execute a statement taking the form id and a question id for a list of questions, as a single JDBC batch
+     * 
+     * @param strSql
+     *            the statement
+     * @param nIdForm
+     *            the form id
+     * @param collectionIdQuestion
+     *            the question ids
+     * @param plugin
+     *            the Plugin
+     */
+    private static void executeBatch( String strSql, int nIdForm, Collection<Integer> collectionIdQuestion, Plugin plugin )
+    {
+        if ( collectionIdQuestion.isEmpty( ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( strSql, plugin ) )
+        {
+            for ( Integer nIdQuestion : collectionIdQuestion )
+            {
+                daoUtil.setInt( 1, nIdForm );
+                daoUtil.setInt( 2, nIdQuestion );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
 }
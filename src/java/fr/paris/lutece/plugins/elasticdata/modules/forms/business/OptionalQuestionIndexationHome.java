@@ -35,18 +35,31 @@ package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.util.sql.TransactionManager;
 import jakarta.enterprise.inject.spi.CDI;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.ConfigProvider;
 
 /**
- * This class provides instances management methods (create, find, ...) for OptionalQuestionIndexation objects
+ * This class provides instances management methods (create, find, ...) for OptionalQuestionIndexation objects. The indexed questions of each form
+ * are cached with the version they were loaded at: every modification increments the version of the form in the database, so that the other nodes
+ * of a cluster reload it once their check interval is over.
  */
 public final class OptionalQuestionIndexationHome
 {
     // Static variable pointed at the DAO instance
     private static IOptionalQuestionIndexationDAO _dao = CDI.current( ).select( IOptionalQuestionIndexationDAO.class ).get( );
     private static Plugin _plugin = PluginService.getPlugin( "elasticdata-forms" );
+    private static final String PROPERTY_CHECK_INTERVAL = "elasticdata-forms.optionalQuestions.cache.checkInterval";
+    private static final long DEFAULT_CHECK_INTERVAL = 30000L;
+    private static long _lCheckInterval = ConfigProvider.getConfig( ).getOptionalValue( PROPERTY_CHECK_INTERVAL, Long.class )
+            .orElse( DEFAULT_CHECK_INTERVAL );
+    private static final Map<Integer, OptionalQuestionSelection> _mapSelectionCache = new ConcurrentHashMap<>( );
 
     /**
      * Private constructor - this class need not be instantiated
@@ -65,6 +78,7 @@ public final class OptionalQuestionIndexationHome
     public static OptionalQuestionIndexation create( OptionalQuestionIndexation optionalQuestionIndexation )
     {
         _dao.insert( optionalQuestionIndexation, _plugin );
+        invalidate( optionalQuestionIndexation.getIdForm( ) );
         return optionalQuestionIndexation;
     }
 
@@ -78,6 +92,7 @@ public final class OptionalQuestionIndexationHome
     public static OptionalQuestionIndexation update( OptionalQuestionIndexation optionalQuestionIndexation )
     {
         _dao.store( optionalQuestionIndexation, _plugin );
+        invalidate( optionalQuestionIndexation.getIdForm( ) );
 
         return optionalQuestionIndexation;
     }
@@ -90,7 +105,12 @@ public final class OptionalQuestionIndexationHome
      */
     public static void remove( int nKey )
     {
+        OptionalQuestionIndexation optionalQuestionIndexation = _dao.load( nKey, _plugin );
         _dao.delete( nKey, _plugin );
+        if ( optionalQuestionIndexation != null )
+        {
+            invalidate( optionalQuestionIndexation.getIdForm( ) );
+        }
     }
 
     /**
@@ -147,4 +167,85 @@ public final class OptionalQuestionIndexationHome
         return _dao.selectOptionalQuestionIndexationsListByFormId( nFormId, _plugin );
     }
 
+    /**
+     * Replace the indexed questions of a form, in one transaction
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param setIdQuestion
+     *            the ids of the indexed questions
+     * @param setIdHistoryQuestion
+     *            the ids of the indexed questions that are also indexed in the history documents
+     */
+    public static void replaceQuestionsForForm( int nIdForm, Set<Integer> setIdQuestion, Set<Integer> setIdHistoryQuestion )
+    {
+        TransactionManager.beginTransaction( _plugin );
+        try
+        {
+            _dao.replaceQuestionsForForm( nIdForm, setIdQuestion, _plugin );
+            _dao.updateHistoryQuestionsForForm( nIdForm, setIdHistoryQuestion, _plugin );
+            _dao.incrementVersion( nIdForm, _plugin );
+            TransactionManager.commitTransaction( _plugin );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( _plugin );
+            throw e;
+        }
+        finally
+        {
+            _mapSelectionCache.remove( nIdForm );
+        }
+    }
+
+    /**
+     * Returns the indexed questions of a form. The cached selection is used as long as its version matches the version in the database, which is
+     * checked at most once per check interval.
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the indexed questions of the form
+     */
+    public static OptionalQuestionSelection getSelectionByFormId( int nIdForm )
+    {
+        OptionalQuestionSelection selection = _mapSelectionCache.get( nIdForm );
+        if ( selection != null && System.currentTimeMillis( ) - selection.getCheckedAt( ) < _lCheckInterval )
+        {
+            return selection;
+        }
+        int nVersion = _dao.selectVersion( nIdForm, _plugin );
+        if ( selection != null && selection.getVersion( ) == nVersion )
+        {
+            selection.setChecked( );
+            return selection;
+        }
+        selection = new OptionalQuestionSelection( _dao.selectOptionalQuestionIndexationsListByFormId( nIdForm, _plugin ), nVersion );
+        _mapSelectionCache.put( nIdForm, selection );
+        return selection;
+    }
+
+    /**
+     * Increment the version of the indexed questions of a form and drop its cached selection
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    private static void invalidate( int nIdForm )
+    {
+        TransactionManager.beginTransaction( _plugin );
+        try
+        {
+            _dao.incrementVersion( nIdForm, _plugin );
+            TransactionManager.commitTransaction( _plugin );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( _plugin );
+            throw e;
+        }
+        finally
+        {
+            _mapSelectionCache.remove( nIdForm );
+        }
+    }
 }
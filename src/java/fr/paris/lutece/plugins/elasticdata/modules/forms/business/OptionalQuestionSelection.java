@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable set of the indexed questions of a form, as cached by {@link OptionalQuestionIndexationHome}. The question ids are held in bit sets, so
+ * the lookups done for every question response do not box.
+ */
+public final class OptionalQuestionSelection
+{
+    private final BitSet _setIndexed = new BitSet( );
+    private final BitSet _setIndexedInHistory = new BitSet( );
+    private final int _nVersion;
+    private volatile long _lCheckedAt;
+
+    /**
+     * Constructor
+     * 
+     * @param listOptionalQuestionIndexation
+     *            the indexed questions of the form
+     * @param nVersion
+     *            the version of the indexed questions of the form when they were loaded
+     */
+    OptionalQuestionSelection( List<OptionalQuestionIndexation> listOptionalQuestionIndexation, int nVersion )
+    {
+        for ( OptionalQuestionIndexation optionalQuestionIndexation : listOptionalQuestionIndexation )
+        {
+            _setIndexed.set( optionalQuestionIndexation.getIdQuestion( ) );
+            if ( optionalQuestionIndexation.isIndexedInHistory( ) )
+            {
+                _setIndexedInHistory.set( optionalQuestionIndexation.getIdQuestion( ) );
+            }
+        }
+        _nVersion = nVersion;
+        _lCheckedAt = System.currentTimeMillis( );
+    }
+
+    /**
+     * Returns true if a question is indexed
+     * 
+     * @param nIdQuestion
+     *            the question id
+     * @return true if the question is indexed
+     */
+    public boolean isIndexed( int nIdQuestion )
+    {
+        return _setIndexed.get( nIdQuestion );
+    }
+
+    /**
+     * Returns true if a question is indexed in the history documents
+     * 
+     * @param nIdQuestion
+     *            the question id
+     * @return true if the question is indexed in the history documents
+     */
+    public boolean isIndexedInHistory( int nIdQuestion )
+    {
+        return _setIndexedInHistory.get( nIdQuestion );
+    }
+
+    /**
+     * Returns the ids of the indexed questions
+     * 
+     * @return a new list of the question ids, in ascending order
+     */
+    public List<Integer> getIdQuestions( )
+    {
+        List<Integer> listIdQuestion = new ArrayList<>( _setIndexed.cardinality( ) );
+        _setIndexed.stream( ).forEach( listIdQuestion::add );
+        return listIdQuestion;
+    }
+
+    /**
+     * Returns true if no question is indexed
+     * 
+     * @return true if no question is indexed
+     */
+    public boolean isEmpty( )
+    {
+        return _setIndexed.isEmpty( );
+    }
+
+    /**
+     * Returns the version of the indexed questions of the form when they were loaded
+     * 
+     * @return the version
+     */
+    public int getVersion( )
+    {
+        return _nVersion;
+    }
+
+    /**
+     * Returns the last time the version was checked against the database
+     * 
+     * @return the time in milliseconds
+     */
+    long getCheckedAt( )
+    {
+        return _lCheckedAt;
+    }
+
+    /**
+     * Record that the version has just been checked against the database
+     */
+    void setChecked( )
+    {
+        _lCheckedAt = System.currentTimeMillis( );
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * This is the business class for the object ReindexCheckpoint: the progress of a reindexing persisted after each batch, from which an interrupted
+ * reindexing can be resumed
+ */
+public class ReindexCheckpoint implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    // Variables declarations
+    private String _strName;
+    private int _nLastIdFormResponse;
+    private int _nBatchSequence;
+    private int _nProcessed;
+    private String _strIndexName;
+    private Timestamp _dateStart;
+    private Timestamp _dateUpdate;
+
+    /**
+     * Returns the checkpoint name
+     * 
+     * @return The checkpoint name
+     */
+    public String getName( )
+    {
+        return _strName;
+    }
+
+    /**
+     * Sets the checkpoint name
+     * 
+     * @param strName
+     *            The checkpoint name
+     */
+    public void setName( String strName )
+    {
+        _strName = strName;
+    }
+
+    /**
+     * Returns the id of the last form response of the last completed batch
+     * 
+     * @return The form response id
+     */
+    public int getLastIdFormResponse( )
+    {
+        return _nLastIdFormResponse;
+    }
+
+    /**
+     * Sets the id of the last form response of the last completed batch
+     * 
+     * @param nLastIdFormResponse
+     *            The form response id
+     */
+    public void setLastIdFormResponse( int nLastIdFormResponse )
+    {
+        _nLastIdFormResponse = nLastIdFormResponse;
+    }
+
+    /**
+     * Returns the sequence number of the last completed batch
+     * 
+     * @return The batch sequence number
+     */
+    public int getBatchSequence( )
+    {
+        return _nBatchSequence;
+    }
+
+    /**
+     * Sets the sequence number of the last completed batch
+     * 
+     * @param nBatchSequence
+     *            The batch sequence number
+     */
+    public void setBatchSequence( int nBatchSequence )
+    {
+        _nBatchSequence = nBatchSequence;
+    }
+
+    /**
+     * Returns the number of form responses processed so far
+     * 
+     * @return The number of form responses
+     */
+    public int getProcessed( )
+    {
+        return _nProcessed;
+    }
+
+    /**
+     * Sets the number of form responses processed so far
+     * 
+     * @param nProcessed
+     *            The number of form responses
+     */
+    public void setProcessed( int nProcessed )
+    {
+        _nProcessed = nProcessed;
+    }
+
+    /**
+     * Returns the name of the index being built
+     * 
+     * @return The index name, or null if the reindexing writes to the target index of the data source
+     */
+    public String getIndexName( )
+    {
+        return _strIndexName;
+    }
+
+    /**
+     * Sets the name of the index being built
+     * 
+     * @param strIndexName
+     *            The index name, or null if the reindexing writes to the target index of the data source
+     */
+    public void setIndexName( String strIndexName )
+    {
+        _strIndexName = strIndexName;
+    }
+
+    /**
+     * Returns the start date of the reindexing
+     * 
+     * @return The start date
+     */
+    public Timestamp getStartDate( )
+    {
+        return _dateStart;
+    }
+
+    /**
+     * Sets the start date of the reindexing
+     * 
+     * @param dateStart
+     *            The start date
+     */
+    public void setStartDate( Timestamp dateStart )
+    {
+        _dateStart = dateStart;
+    }
+
+    /**
+     * Returns the date of the last update
+     * 
+     * @return The update date
+     */
+    public Timestamp getUpdateDate( )
+    {
+        return _dateUpdate;
+    }
+
+    /**
+     * Sets the date of the last update
+     * 
+     * @param dateUpdate
+     *            The update date
+     */
+    public void setUpdateDate( Timestamp dateUpdate )
+    {
+        _dateUpdate = dateUpdate;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * This class provides Data Access methods for ReindexCheckpoint objects
+ */
+@ApplicationScoped
+public final class ReindexCheckpointDAO implements IReindexCheckpointDAO
+{
+    // Constants
+    private static final String SQL_QUERY_SELECT = "SELECT checkpoint_name, last_id_response, batch_sequence, processed, index_name, start_date, update_date FROM elasticdata_forms_reindex_checkpoint WHERE checkpoint_name = ?";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO elasticdata_forms_reindex_checkpoint ( checkpoint_name, last_id_response, batch_sequence, processed, index_name, start_date, update_date ) VALUES ( ?, ?, ?, ?, ?, ?, ? ) ";
+    private static final String SQL_QUERY_UPDATE = "UPDATE elasticdata_forms_reindex_checkpoint SET last_id_response = ?, batch_sequence = ?, processed = ?, update_date = ? WHERE checkpoint_name = ?";
+    private static final String SQL_QUERY_DELETE = "DELETE FROM elasticdata_forms_reindex_checkpoint WHERE checkpoint_name = ? ";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insert( ReindexCheckpoint checkpoint, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, checkpoint.getName( ) );
+            daoUtil.setInt( nIndex++, checkpoint.getLastIdFormResponse( ) );
+            daoUtil.setInt( nIndex++, checkpoint.getBatchSequence( ) );
+            daoUtil.setInt( nIndex++, checkpoint.getProcessed( ) );
+            daoUtil.setString( nIndex++, checkpoint.getIndexName( ) );
+            daoUtil.setTimestamp( nIndex++, checkpoint.getStartDate( ) );
+            daoUtil.setTimestamp( nIndex, checkpoint.getUpdateDate( ) );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int store( ReindexCheckpoint checkpoint, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, checkpoint.getLastIdFormResponse( ) );
+            daoUtil.setInt( nIndex++, checkpoint.getBatchSequence( ) );
+            daoUtil.setInt( nIndex++, checkpoint.getProcessed( ) );
+            daoUtil.setTimestamp( nIndex++, checkpoint.getUpdateDate( ) );
+            daoUtil.setString( nIndex, checkpoint.getName( ) );
+            return daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void delete( String strName, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        {
+            daoUtil.setString( 1, strName );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ReindexCheckpoint load( String strName, Plugin plugin )
+    {
+        ReindexCheckpoint checkpoint = null;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT, plugin ) )
+        {
+            daoUtil.setString( 1, strName );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                checkpoint = new ReindexCheckpoint( );
+                int nIndex = 1;
+                checkpoint.setName( daoUtil.getString( nIndex++ ) );
+                checkpoint.setLastIdFormResponse( daoUtil.getInt( nIndex++ ) );
+                checkpoint.setBatchSequence( daoUtil.getInt( nIndex++ ) );
+                checkpoint.setProcessed( daoUtil.getInt( nIndex++ ) );
+                checkpoint.setIndexName( daoUtil.getString( nIndex++ ) );
+                checkpoint.setStartDate( daoUtil.getTimestamp( nIndex++ ) );
+                checkpoint.setUpdateDate( daoUtil.getTimestamp( nIndex ) );
+            }
+        }
+        return checkpoint;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.sql.Timestamp;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import jakarta.enterprise.inject.spi.CDI;
+
+/**
+ * This class provides instances management methods for the reindexing checkpoints
+ */
+public final class ReindexCheckpointHome
+{
+    // Static variable pointed at the DAO instance
+    private static IReindexCheckpointDAO _dao = CDI.current( ).select( IReindexCheckpointDAO.class ).get( );
+    private static Plugin _plugin = PluginService.getPlugin( "elasticdata-forms" );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private ReindexCheckpointHome( )
+    {
+    }
+
+    /**
+     * Save a checkpoint, creating it if it does not exist yet. The update date is set to the current date.
+     * 
+     * @param checkpoint
+     *            the checkpoint
+     */
+    public static void save( ReindexCheckpoint checkpoint )
+    {
+        checkpoint.setUpdateDate( new Timestamp( System.currentTimeMillis( ) ) );
+        if ( _dao.store( checkpoint, _plugin ) == 0 )
+        {
+            _dao.insert( checkpoint, _plugin );
+        }
+    }
+
+    /**
+     * Remove a checkpoint
+     * 
+     * @param strName
+     *            the checkpoint name
+     */
+    public static void remove( String strName )
+    {
+        _dao.delete( strName, _plugin );
+    }
+
+    /**
+     * Returns a checkpoint
+     * 
+     * @param strName
+     *            the checkpoint name
+     * @return the checkpoint, or null if there is no interrupted reindexing
+     */
+    public static ReindexCheckpoint findByName( String strName )
+    {
+        return _dao.load( strName, _plugin );
+    }
+}
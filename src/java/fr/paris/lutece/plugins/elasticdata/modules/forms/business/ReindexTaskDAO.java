@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * This class provides Data Access methods for ReindexTask objects
+ */
+@ApplicationScoped
+public final class ReindexTaskDAO implements IReindexTaskDAO
+{
+    // Constants
+    private static final String SQL_QUERY_INSERT = "INSERT INTO elasticdata_forms_reindex_task ( id_resource, task_type ) VALUES ( ?, ? ) ";
+    private static final String SQL_QUERY_DELETE_UP_TO = "DELETE FROM elasticdata_forms_reindex_task WHERE id_reindex_task <= ? ";
+    private static final String SQL_QUERY_DELETE_ALL = "DELETE FROM elasticdata_forms_reindex_task ";
+    private static final String SQL_QUERY_SELECT_OLDEST = "SELECT id_reindex_task, id_resource, task_type FROM elasticdata_forms_reindex_task ORDER BY id_reindex_task LIMIT ?";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insert( ReindexTask reindexTask, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, reindexTask.getIdResource( ) );
+            daoUtil.setInt( nIndex, reindexTask.getTaskType( ) );
+            daoUtil.executeUpdate( );
+            if ( daoUtil.nextGeneratedKey( ) )
+            {
+                reindexTask.setId( daoUtil.getGeneratedKeyInt( 1 ) );
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insertAll( Collection<Integer> collectionIdResource, int nTaskType, Plugin plugin )
+    {
+        if ( collectionIdResource.isEmpty( ) )
+        {
+            return;
+        }
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin ) )
+        {
+            for ( Integer nIdResource : collectionIdResource )
+            {
+                daoUtil.setInt( 1, nIdResource );
+                daoUtil.setInt( 2, nTaskType );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteUpTo( int nMaxId, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_UP_TO, plugin ) )
+        {
+            daoUtil.setInt( 1, nMaxId );
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteAll( Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE_ALL, plugin ) )
+        {
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<ReindexTask> selectOldest( int nLimit, Plugin plugin )
+    {
+        List<ReindexTask> listReindexTasks = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_OLDEST, plugin ) )
+        {
+            daoUtil.setInt( 1, nLimit );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                ReindexTask reindexTask = new ReindexTask( );
+                int nIndex = 1;
+                reindexTask.setId( daoUtil.getInt( nIndex++ ) );
+                reindexTask.setIdResource( daoUtil.getInt( nIndex++ ) );
+                reindexTask.setTaskType( daoUtil.getInt( nIndex ) );
+                listReindexTasks.add( reindexTask );
+            }
+        }
+        return listReindexTasks;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import java.util.Collection;
+import java.util.List;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import jakarta.enterprise.inject.spi.CDI;
+
+/**
+ * This class provides instances management methods for the incremental indexing tasks recorded while a new version of the index is built
+ */
+public final class ReindexTaskHome
+{
+    // Static variable pointed at the DAO instance
+    private static IReindexTaskDAO _dao = CDI.current( ).select( IReindexTaskDAO.class ).get( );
+    private static Plugin _plugin = PluginService.getPlugin( "elasticdata-forms" );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private ReindexTaskHome( )
+    {
+    }
+
+    /**
+     * Record a task
+     * 
+     * @param nIdResource
+     *            the form response id
+     * @param nTaskType
+     *            the task type
+     */
+    public static void create( int nIdResource, int nTaskType )
+    {
+        ReindexTask reindexTask = new ReindexTask( );
+        reindexTask.setIdResource( nIdResource );
+        reindexTask.setTaskType( nTaskType );
+        _dao.insert( reindexTask, _plugin );
+    }
+
+    /**
+     * Record a task of the same type for each of a list of form responses
+     * 
+     * @param collectionIdResource
+     *            the form response ids
+     * @param nTaskType
+     *            the task type
+     */
+    public static void createAll( Collection<Integer> collectionIdResource, int nTaskType )
+    {
+        _dao.insertAll( collectionIdResource, nTaskType, _plugin );
+    }
+
+    /**
+     * Remove the tasks up to a given id, once they have been replayed
+     * 
+     * @param nMaxId
+     *            the id of the last task to remove
+     */
+    public static void removeUpTo( int nMaxId )
+    {
+        _dao.deleteUpTo( nMaxId, _plugin );
+    }
+
+    /**
+     * Remove all the tasks
+     */
+    public static void removeAll( )
+    {
+        _dao.deleteAll( _plugin );
+    }
+
+    /**
+     * Returns the oldest tasks
+     * 
+     * @param nLimit
+     *            the maximum number of tasks
+     * @return the list of the tasks, ordered by id
+     */
+    public static List<ReindexTask> getOldestTasks( int nLimit )
+    {
+        return _dao.selectOldest( nLimit, _plugin );
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.plugins.workflowcore.business.action.Action;
+import fr.paris.lutece.plugins.workflowcore.business.resource.ResourceHistory;
+import fr.paris.lutece.plugins.workflowcore.business.workflow.Workflow;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.util.sql.DAOUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class provides Data Access methods to read the workflow resource history of the form responses in bulk
+ */
+@ApplicationScoped
+public final class ResourceHistoryIndexationDAO implements IResourceHistoryIndexationDAO
+{
+    // Constants
+    private static final String SQL_QUERY_SELECT = "SELECT h.id_history, h.id_resource, h.resource_type, h.id_workflow, w.name, h.id_action, a.name, h.creation_date, h.user_access_code "
+            + " FROM workflow_resource_history h LEFT JOIN workflow_workflow w ON w.id_workflow = h.id_workflow LEFT JOIN workflow_action a ON a.id_action = h.id_action ";
+    private static final String SQL_QUERY_SELECT_BY_RESOURCES_AND_WORKFLOWS = SQL_QUERY_SELECT
+            + " WHERE h.resource_type = ? AND h.id_resource IN ( %s ) AND h.id_workflow IN ( %s ) ORDER BY h.id_resource, h.creation_date, h.id_history";
+    private static final String SQL_QUERY_SELECT_AFTER = SQL_QUERY_SELECT + " WHERE h.resource_type = ? AND h.id_history > ? ORDER BY h.id_history LIMIT ?";
+    private static final String SQL_QUERY_SELECT_CREATED_SINCE = SQL_QUERY_SELECT
+            + " WHERE h.resource_type = ? AND h.id_history > ? AND h.id_history <= ? AND h.creation_date >= ? ORDER BY h.id_history";
+    private static final String SQL_QUERY_SELECT_MAX_ID = "SELECT MAX( id_history ) FROM workflow_resource_history WHERE resource_type = ?";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<ResourceHistory> selectByResourcesAndWorkflows( List<Integer> listIdResource, List<Integer> listIdWorkflow, String strResourceType,
+            Plugin plugin )
+    {
+        if ( listIdResource.isEmpty( ) || listIdWorkflow.isEmpty( ) )
+        {
+            return Collections.emptyList( );
+        }
+        String strSql = String.format( SQL_QUERY_SELECT_BY_RESOURCES_AND_WORKFLOWS, getPlaceholders( listIdResource.size( ) ),
+                getPlaceholders( listIdWorkflow.size( ) ) );
+        List<ResourceHistory> listResourceHistory = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( strSql, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, strResourceType );
+            for ( Integer nIdResource : listIdResource )
+            {
+                daoUtil.setInt( nIndex++, nIdResource );
+            }
+            for ( Integer nIdWorkflow : listIdWorkflow )
+            {
+                daoUtil.setInt( nIndex++, nIdWorkflow );
+            }
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listResourceHistory.add( dataToObject( daoUtil ) );
+            }
+        }
+        return listResourceHistory;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<ResourceHistory> selectAfter( int nLastIdHistory, String strResourceType, int nLimit, Plugin plugin )
+    {
+        List<ResourceHistory> listResourceHistory = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_AFTER, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, strResourceType );
+            daoUtil.setInt( nIndex++, nLastIdHistory );
+            daoUtil.setInt( nIndex, nLimit );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listResourceHistory.add( dataToObject( daoUtil ) );
+            }
+        }
+        return listResourceHistory;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<ResourceHistory> selectCreatedSince( int nFromIdHistory, int nToIdHistory, Timestamp dateFrom, String strResourceType, Plugin plugin )
+    {
+        List<ResourceHistory> listResourceHistory = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_CREATED_SINCE, plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setString( nIndex++, strResourceType );
+            daoUtil.setInt( nIndex++, nFromIdHistory );
+            daoUtil.setInt( nIndex++, nToIdHistory );
+            daoUtil.setTimestamp( nIndex, dateFrom );
+            daoUtil.executeQuery( );
+            while ( daoUtil.next( ) )
+            {
+                listResourceHistory.add( dataToObject( daoUtil ) );
+            }
+        }
+        return listResourceHistory;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int selectMaxIdHistory( String strResourceType, Plugin plugin )
+    {
+        int nMaxIdHistory = 0;
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_MAX_ID, plugin ) )
+        {
+            daoUtil.setString( 1, strResourceType );
+            daoUtil.executeQuery( );
+            if ( daoUtil.next( ) )
+            {
+                nMaxIdHistory = daoUtil.getInt( 1 );
+            }
+        }
+        return nMaxIdHistory;
+    }
+
+    /**
+     * Build a resource history from the current row
+     * 
+     * @param daoUtil
+     *            the daoUtil positioned on a row
+     * @return the resource history
+     */
+    private static ResourceHistory dataToObject( DAOUtil daoUtil )
+    {
+        int nIndex = 1;
+        ResourceHistory resourceHistory = new ResourceHistory( );
+        resourceHistory.setId( daoUtil.getInt( nIndex++ ) );
+        resourceHistory.setIdResource( daoUtil.getInt( nIndex++ ) );
+        resourceHistory.setResourceType( daoUtil.getString( nIndex++ ) );
+        Workflow workflow = new Workflow( );
+        workflow.setId( daoUtil.getInt( nIndex++ ) );
+        workflow.setName( daoUtil.getString( nIndex++ ) );
+        resourceHistory.setWorkflow( workflow );
+        Action action = new Action( );
+        action.setId( daoUtil.getInt( nIndex++ ) );
+        action.setName( daoUtil.getString( nIndex++ ) );
+        resourceHistory.setAction( action );
+        resourceHistory.setCreationDate( daoUtil.getTimestamp( nIndex++ ) );
+        resourceHistory.setUserAccessCode( daoUtil.getString( nIndex ) );
+        return resourceHistory;
+    }
+
+    /**
+     * Build the placeholders of an IN clause
+     * 
+     * @param nCount
+     *            the number of values
+     * @return the placeholders
+     */
+    private static String getPlaceholders( int nCount )
+    {
+        return String.join( ",", Collections.nCopies( nCount, "?" ) );
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.business;
+
+import fr.paris.lutece.plugins.workflowcore.business.resource.ResourceHistory;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import jakarta.enterprise.inject.spi.CDI;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * This class provides bulk read methods for the workflow resource history. The history table belongs to the workflow plugin, so the queries are run
+ * against its pool.
+ */
+public final class ResourceHistoryIndexationHome
+{
+    private static final String PLUGIN_WORKFLOW = "workflow";
+
+    // Static variable pointed at the DAO instance
+    private static IResourceHistoryIndexationDAO _dao = CDI.current( ).select( IResourceHistoryIndexationDAO.class ).get( );
+    private static Plugin _plugin = PluginService.getPlugin( PLUGIN_WORKFLOW );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private ResourceHistoryIndexationHome( )
+    {
+    }
+
+    /**
+     * Load the resource history of a list of resources for a list of workflows, ordered by resource id then creation date
+     * 
+     * @param listIdResource
+     *            the resource ids
+     * @param listIdWorkflow
+     *            the workflow ids
+     * @param strResourceType
+     *            the resource type
+     * @return the list of resource history
+     */
+    public static List<ResourceHistory> getResourceHistoryList( List<Integer> listIdResource, List<Integer> listIdWorkflow, String strResourceType )
+    {
+        return _dao.selectByResourcesAndWorkflows( listIdResource, listIdWorkflow, strResourceType, _plugin );
+    }
+
+    /**
+     * Load the resource history created after a given history id, ordered by id
+     * 
+     * @param nLastIdHistory
+     *            the last history id already processed
+     * @param strResourceType
+     *            the resource type
+     * @param nLimit
+     *            the maximum number of rows to load
+     * @return the list of resource history
+     */
+    public static List<ResourceHistory> getResourceHistoryListAfter( int nLastIdHistory, String strResourceType, int nLimit )
+    {
+        return _dao.selectAfter( nLastIdHistory, strResourceType, nLimit, _plugin );
+    }
+
+    /**
+     * Load the resource history of a range of history ids created since a given date, ordered by id
+     * 
+     * @param nFromIdHistory
+     *            the lower bound of the history ids, excluded
+     * @param nToIdHistory
+     *            the upper bound of the history ids, included
+     * @param dateFrom
+     *            the minimum creation date
+     * @param strResourceType
+     *            the resource type
+     * @return the list of resource history
+     */
+    public static List<ResourceHistory> getResourceHistoryListCreatedSince( int nFromIdHistory, int nToIdHistory, Timestamp dateFrom,
+            String strResourceType )
+    {
+        return _dao.selectCreatedSince( nFromIdHistory, nToIdHistory, dateFrom, strResourceType, _plugin );
+    }
+
+    /**
+     * Load the greatest history id of a resource type
+     * 
+     * @param strResourceType
+     *            the resource type
+     * @return the greatest history id, 0 if there is none
+     */
+    public static int getMaxIdHistory( String strResourceType )
+    {
+        return _dao.selectMaxIdHistory( strResourceType, _plugin );
+    }
+}
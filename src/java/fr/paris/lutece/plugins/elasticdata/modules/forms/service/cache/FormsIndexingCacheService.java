@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.OptionalQuestionIndexationHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.OptionalQuestionSelection;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.FormSchema;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.QuestionSchema;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer.ResponseValueSerializer;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer.ResponseValueSerializerService;
+import fr.paris.lutece.plugins.forms.business.Form;
+import fr.paris.lutece.plugins.forms.business.FormHome;
+import fr.paris.lutece.plugins.forms.business.Question;
+import fr.paris.lutece.plugins.forms.business.QuestionHome;
+import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
+import fr.paris.lutece.plugins.genericattributes.business.Field;
+import fr.paris.lutece.plugins.genericattributes.business.FieldHome;
+import fr.paris.lutece.plugins.workflowcore.business.action.Action;
+import fr.paris.lutece.plugins.workflowcore.business.action.ActionFilter;
+import fr.paris.lutece.plugins.workflowcore.business.state.State;
+import fr.paris.lutece.plugins.workflowcore.business.state.StateFilter;
+import fr.paris.lutece.plugins.workflowcore.business.workflow.Workflow;
+import fr.paris.lutece.plugins.workflowcore.service.action.IActionService;
+import fr.paris.lutece.plugins.workflowcore.service.state.IStateService;
+import fr.paris.lutece.plugins.workflowcore.service.workflow.IWorkflowService;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Module level caches of the metadata read while indexing: forms, workflow definitions, field codes and compiled form schemas
+ */
+@ApplicationScoped
+public class FormsIndexingCacheService
+{
+    private static final String CACHE_FORMS = "forms";
+    private static final String CACHE_WORKFLOWS = "workflows";
+    private static final String CACHE_FIELD_CODES = "fieldCodes";
+    private static final String CACHE_SCHEMAS = "schemas";
+    private static final int KEY_TITLE_MAX_LENGTH = 100;
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long WORKFLOW_RELOAD_MIN_INTERVAL = 60000L;
+
+    @Inject
+    private IActionService _actionService;
+    @Inject
+    private IStateService _stateService;
+    @Inject
+    private IWorkflowService _workflowService;
+    @Inject
+    private ResponseValueSerializerService _serializerService;
+
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.cache.maxSize", defaultValue = "500" )
+    private int _nMaxSize;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.cache.timeToLive", defaultValue = "600" )
+    private long _lTimeToLive;
+
+    private IndexingCache<Integer, Form> _cacheForms;
+    private IndexingCache<Integer, WorkflowMetadata> _cacheWorkflows;
+    private IndexingCache<Integer, Map<Integer, String>> _cacheFieldCodes;
+    private IndexingCache<Integer, FormSchema> _cacheSchemas;
+
+    /**
+     * Create the caches once the configuration is injected
+     */
+    @PostConstruct
+    void initCaches( )
+    {
+        _cacheForms = new IndexingCache<>( CACHE_FORMS, _nMaxSize, _lTimeToLive * MILLIS_PER_SECOND );
+        _cacheWorkflows = new IndexingCache<>( CACHE_WORKFLOWS, _nMaxSize, _lTimeToLive * MILLIS_PER_SECOND );
+        _cacheFieldCodes = new IndexingCache<>( CACHE_FIELD_CODES, _nMaxSize, _lTimeToLive * MILLIS_PER_SECOND );
+        _cacheSchemas = new IndexingCache<>( CACHE_SCHEMAS, _nMaxSize, _lTimeToLive * MILLIS_PER_SECOND );
+    }
+
+    /**
+     * Returns a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the form, or null if it does not exist
+     */
+    public Form getForm( int nIdForm )
+    {
+        return _cacheForms.get( nIdForm, FormHome::findByPrimaryKey );
+    }
+
+    /**
+     * Returns the metadata of a workflow
+     * 
+     * @param nIdWorkflow
+     *            the workflow id
+     * @return the workflow metadata
+     */
+    public WorkflowMetadata getWorkflowMetadata( int nIdWorkflow )
+    {
+        return _cacheWorkflows.get( nIdWorkflow, this::loadWorkflowMetadata );
+    }
+
+    /**
+     * Returns the metadata of a workflow including some actions. The cached metadata is loaded again when one of the actions is missing, which means
+     * that the workflow has been modified since it was cached; an action deleted from the workflow triggers at most one reload per minute.
+     * 
+     * @param nIdWorkflow
+     *            the workflow id
+     * @param collectionIdAction
+     *            the ids of the actions about to be read from the metadata
+     * @return the workflow metadata
+     */
+    public WorkflowMetadata getWorkflowMetadata( int nIdWorkflow, Collection<Integer> collectionIdAction )
+    {
+        WorkflowMetadata workflowMetadata = getWorkflowMetadata( nIdWorkflow );
+        if ( workflowMetadata.getLoadTime( ) < System.currentTimeMillis( ) - WORKFLOW_RELOAD_MIN_INTERVAL
+                && collectionIdAction.stream( ).anyMatch( nIdAction -> workflowMetadata.getAction( nIdAction ) == null ) )
+        {
+            invalidateWorkflow( nIdWorkflow );
+            return getWorkflowMetadata( nIdWorkflow );
+        }
+        return workflowMetadata;
+    }
+
+    /**
+     * Returns the codes of the fields of the indexed entries of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the field codes by field id
+     */
+    public Map<Integer, String> getFieldCodes( int nIdForm )
+    {
+        return _cacheFieldCodes.get( nIdForm, this::loadFieldCodes );
+    }
+
+    /**
+     * Returns the compiled indexing schema of a form. The cached schema is rebuilt when the indexed questions of the form have changed since it was
+     * built.
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the schema
+     */
+    public FormSchema getFormSchema( int nIdForm )
+    {
+        FormSchema schema = _cacheSchemas.get( nIdForm, this::loadFormSchema );
+        if ( schema.getVersion( ) != OptionalQuestionIndexationHome.getSelectionByFormId( nIdForm ).getVersion( ) )
+        {
+            _cacheSchemas.invalidate( nIdForm );
+            schema = _cacheSchemas.get( nIdForm, this::loadFormSchema );
+        }
+        return schema;
+    }
+
+    /**
+     * Invalidate the cached field codes and schema of a form, to be called when the indexed questions of the form are modified
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public void invalidateFieldCodes( int nIdForm )
+    {
+        _cacheFieldCodes.invalidate( nIdForm );
+        _cacheSchemas.invalidate( nIdForm );
+    }
+
+    /**
+     * Invalidate all the compiled form schemas, so that they are built again once per indexing run
+     */
+    public void invalidateSchemas( )
+    {
+        _cacheSchemas.invalidateAll( );
+    }
+
+    /**
+     * Invalidate the cached definition of a workflow, to be called when the workflow is modified
+     * 
+     * @param nIdWorkflow
+     *            the workflow id
+     */
+    public void invalidateWorkflow( int nIdWorkflow )
+    {
+        _cacheWorkflows.invalidate( nIdWorkflow );
+    }
+
+    /**
+     * Invalidate a cached form, to be called when the form is modified
+     * 
+     * @param nIdForm
+     *            the form id
+     */
+    public void invalidateForm( int nIdForm )
+    {
+        _cacheForms.invalidate( nIdForm );
+        _cacheSchemas.invalidate( nIdForm );
+    }
+
+    /**
+     * Invalidate all the caches
+     */
+    public void invalidateAll( )
+    {
+        _cacheForms.invalidateAll( );
+        _cacheWorkflows.invalidateAll( );
+        _cacheFieldCodes.invalidateAll( );
+        _cacheSchemas.invalidateAll( );
+    }
+
+    /**
+     * Returns the caches, for monitoring purpose
+     * 
+     * @return the caches
+     */
+    public List<IndexingCache<Integer, ?>> getCaches( )
+    {
+        return Arrays.asList( _cacheForms, _cacheWorkflows, _cacheFieldCodes, _cacheSchemas );
+    }
+
+    /**
+     * Load the metadata of a workflow
+     * 
+     * @param nIdWorkflow
+     *            the workflow id
+     * @return the workflow metadata
+     */
+    private WorkflowMetadata loadWorkflowMetadata( int nIdWorkflow )
+    {
+        StateFilter stateFilter = new StateFilter( );
+        stateFilter.setIdWorkflow( nIdWorkflow );
+        List<State> listStates = _stateService.getListStateByFilter( stateFilter );
+
+        ActionFilter actionFilter = new ActionFilter( );
+        actionFilter.setIdWorkflow( nIdWorkflow );
+        actionFilter.setAutomaticReflexiveAction( false );
+        List<Action> listActions = _actionService.getListActionByFilter( actionFilter );
+
+        Workflow workflow = _workflowService.findByPrimaryKey( nIdWorkflow );
+
+        return new WorkflowMetadata( workflow != null ? workflow.getName( ) : null, listStates, listActions );
+    }
+
+    /**
+     * Load the codes of the fields of the indexed entries of a form
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the field codes by field id
+     */
+    private Map<Integer, String> loadFieldCodes( int nIdForm )
+    {
+        List<Integer> listIdQuestion = OptionalQuestionIndexationHome.getSelectionByFormId( nIdForm ).getIdQuestions( );
+        if ( listIdQuestion.isEmpty( ) )
+        {
+            return Collections.emptyMap( );
+        }
+        List<Integer> listIdEntry = QuestionHome.findByPrimaryKeyList( listIdQuestion ).stream( ).map( question -> question.getEntry( ).getIdEntry( ) )
+                .distinct( ).collect( Collectors.toList( ) );
+        if ( listIdEntry.isEmpty( ) )
+        {
+            return Collections.emptyMap( );
+        }
+        Map<Integer, String> mapFieldCodes = new HashMap<>( );
+        for ( Field field : FieldHome.getFieldListByListIdEntry( listIdEntry ) )
+        {
+            if ( field.getCode( ) != null )
+            {
+                mapFieldCodes.put( field.getIdField( ), field.getCode( ) );
+            }
+        }
+        return Collections.unmodifiableMap( mapFieldCodes );
+    }
+
+    /**
+     * Build the indexing schema of a form: the key and the serializer of each indexed question are resolved once
+     * 
+     * @param nIdForm
+     *            the form id
+     * @return the schema
+     */
+    private FormSchema loadFormSchema( int nIdForm )
+    {
+        OptionalQuestionSelection questionSelection = OptionalQuestionIndexationHome.getSelectionByFormId( nIdForm );
+        List<QuestionSchema> listQuestionSchema = new ArrayList<>( );
+        Map<Integer, ResponseValueSerializer> mapSerializerByEntry = new HashMap<>( );
+        for ( Question question : QuestionHome.findByPrimaryKeyList( questionSelection.getIdQuestions( ) ) )
+        {
+            ResponseValueSerializer serializer = mapSerializerByEntry.computeIfAbsent( question.getEntry( ).getIdEntry( ),
+                    nIdEntry -> _serializerService.getSerializer( EntryHome.findByPrimaryKey( nIdEntry ) ) );
+            String strKey = question.getId( ) + "." + StringUtils.abbreviate( question.getTitle( ), KEY_TITLE_MAX_LENGTH ) + serializer.getKeySuffix( );
+            listQuestionSchema.add( new QuestionSchema( question.getId( ), strKey, serializer ) );
+        }
+        return new FormSchema( nIdForm, questionSelection.getVersion( ), listQuestionSchema, loadFieldCodes( nIdForm ) );
+    }
+}
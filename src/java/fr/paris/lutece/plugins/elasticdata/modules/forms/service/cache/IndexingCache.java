@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small thread-safe cache used during indexing. The size is bounded, entries expire after a time to live, and hits and misses are counted.
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+public class IndexingCache<K, V>
+{
+    private final String _strName;
+    private final int _nMaxSize;
+    private final long _lTimeToLive;
+    private final Map<K, CacheEntry<V>> _mapEntries = new ConcurrentHashMap<>( );
+    private final LongAdder _hits = new LongAdder( );
+    private final LongAdder _misses = new LongAdder( );
+
+    /**
+     * Constructor
+     * 
+     * @param strName
+     *            the cache name
+     * @param nMaxSize
+     *            the maximum number of entries
+     * @param lTimeToLive
+     *            the time to live of an entry in milliseconds
+     */
+    public IndexingCache( String strName, int nMaxSize, long lTimeToLive )
+    {
+        _strName = strName;
+        _nMaxSize = nMaxSize;
+        _lTimeToLive = lTimeToLive;
+    }
+
+    /**
+     * Get a value from the cache, loading it if it is missing or expired. The loader is called outside of any lock, so two threads may load the same key
+     * concurrently; the last one wins.
+     * 
+     * @param key
+     *            the key
+     * @param loader
+     *            the function loading the value
+     * @return the value, or null if the loader returned null
+     */
+    public V get( K key, Function<K, V> loader )
+    {
+        long lNow = System.currentTimeMillis( );
+        CacheEntry<V> entry = _mapEntries.get( key );
+        if ( entry != null && entry._lExpiration > lNow )
+        {
+            _hits.increment( );
+            return entry._value;
+        }
+        _misses.increment( );
+        V value = loader.apply( key );
+        if ( value != null )
+        {
+            if ( _mapEntries.size( ) >= _nMaxSize && !_mapEntries.containsKey( key ) )
+            {
+                evict( lNow );
+            }
+            _mapEntries.put( key, new CacheEntry<>( value, lNow + _lTimeToLive ) );
+        }
+        return value;
+    }
+
+    /**
+     * Remove an entry
+     * 
+     * @param key
+     *            the key
+     */
+    public void invalidate( K key )
+    {
+        _mapEntries.remove( key );
+    }
+
+    /**
+     * Remove all the entries
+     */
+    public void invalidateAll( )
+    {
+        _mapEntries.clear( );
+    }
+
+    /**
+     * Remove the expired entries, then the entry closest to expiration if the cache is still full
+     * 
+     * @param lNow
+     *            the current time
+     */
+    private void evict( long lNow )
+    {
+        _mapEntries.values( ).removeIf( entry -> entry._lExpiration <= lNow );
+        if ( _mapEntries.size( ) >= _nMaxSize )
+        {
+            _mapEntries.entrySet( ).stream( ).min( ( e1, e2 ) -> Long.compare( e1.getValue( )._lExpiration, e2.getValue( )._lExpiration ) )
+                    .ifPresent( e -> _mapEntries.remove( e.getKey( ) ) );
+        }
+    }
+
+    /**
+     * Returns the cache name
+     * 
+     * @return the cache name
+     */
+    public String getName( )
+    {
+        return _strName;
+    }
+
+    /**
+     * Returns the number of entries
+     * 
+     * @return the number of entries
+     */
+    public int getSize( )
+    {
+        return _mapEntries.size( );
+    }
+
+    /**
+     * Returns the number of hits
+     * 
+     * @return the number of hits
+     */
+    public long getHits( )
+    {
+        return _hits.sum( );
+    }
+
+    /**
+     * Returns the number of misses
+     * 
+     * @return the number of misses
+     */
+    public long getMisses( )
+    {
+        return _misses.sum( );
+    }
+
+    /**
+     * Returns the percentage of the reads served by the cache
+     * 
+     * @return the hit ratio in percent, 0 if the cache has not been read
+     */
+    public int getHitRatio( )
+    {
+        long lHits = getHits( );
+        long lReads = lHits + getMisses( );
+        return ( lReads == 0 ) ? 0 : (int) ( lHits * 100 / lReads );
+    }
+
+    /**
+     * Cache entry
+     */
+    private static final class CacheEntry<V>
+    {
+        private final V _value;
+        private final long _lExpiration;
+
+        CacheEntry( V value, long lExpiration )
+        {
+            _value = value;
+            _lExpiration = lExpiration;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import fr.paris.lutece.plugins.workflowcore.business.action.Action;
+import fr.paris.lutece.plugins.workflowcore.business.state.State;
+
+/**
+ * The states, actions and name of a workflow, indexed by id
+ */
+public class WorkflowMetadata
+{
+    private final String _strWorkflowName;
+    private final Map<Integer, State> _mapStates;
+    private final Map<Integer, Action> _mapActions;
+    private final long _lLoadTime = System.currentTimeMillis( );
+
+    /**
+     * Constructor
+     * 
+     * @param strWorkflowName
+     *            the workflow name
+     * @param listStates
+     *            the states of the workflow
+     * @param listActions
+     *            the actions of the workflow
+     */
+    public WorkflowMetadata( String strWorkflowName, List<State> listStates, List<Action> listActions )
+    {
+        _strWorkflowName = strWorkflowName;
+        _mapStates = Collections.unmodifiableMap( listStates.stream( ).collect( Collectors.toMap( State::getId, Function.identity( ), ( s1, s2 ) -> s1 ) ) );
+        _mapActions = Collections
+                .unmodifiableMap( listActions.stream( ).collect( Collectors.toMap( Action::getId, Function.identity( ), ( a1, a2 ) -> a1 ) ) );
+    }
+
+    /**
+     * Returns the workflow name
+     * 
+     * @return the workflow name
+     */
+    public String getWorkflowName( )
+    {
+        return _strWorkflowName;
+    }
+
+    /**
+     * Returns a state of the workflow
+     * 
+     * @param nIdState
+     *            the state id
+     * @return the state, or null if it does not belong to the workflow
+     */
+    public State getState( int nIdState )
+    {
+        return _mapStates.get( nIdState );
+    }
+
+    /**
+     * Returns an action of the workflow
+     * 
+     * @param nIdAction
+     *            the action id
+     * @return the action, or null if it does not belong to the workflow
+     */
+    public Action getAction( int nIdAction )
+    {
+        return _mapActions.get( nIdAction );
+    }
+
+    /**
+     * Returns the time when the metadata has been loaded
+     * 
+     * @return the load time in milliseconds
+     */
+    public long getLoadTime( )
+    {
+        return _lLoadTime;
+    }
+
+    /**
+     * Returns the state reached by an action of the workflow
+     * 
+     * @param nIdAction
+     *            the action id
+     * @return the state after the action, or null if unknown
+     */
+    public State getStateAfter( int nIdAction )
+    {
+        Action action = getAction( nIdAction );
+        if ( action == null || action.getStateAfter( ) == null )
+        {
+            return null;
+        }
+        return getState( action.getStateAfter( ).getId( ) );
+    }
+}
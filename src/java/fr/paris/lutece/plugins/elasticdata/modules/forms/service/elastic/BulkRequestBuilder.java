@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import fr.paris.lutece.portal.service.util.AppException;
+
+/**
+ * Builds the newline delimited body of an Elasticsearch bulk request
+ */
+public class BulkRequestBuilder
+{
+    private static final ObjectMapper MAPPER = new ObjectMapper( ).setSerializationInclusion( JsonInclude.Include.NON_NULL );
+    private static final String ACTION_INDEX = "index";
+    private static final String ACTION_UPDATE = "update";
+    private static final String ACTION_DELETE = "delete";
+    private static final String FIELD_INDEX = "_index";
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_DOC = "doc";
+
+    private final StringBuilder _sbBody = new StringBuilder( );
+    private final List<String> _listIds = new ArrayList<>( );
+
+    /**
+     * Add a full document
+     * 
+     * @param strIndex
+     *            the index name
+     * @param strId
+     *            the document id
+     * @param document
+     *            the document
+     * @return this builder
+     */
+    public BulkRequestBuilder index( String strIndex, String strId, Object document )
+    {
+        appendLine( Collections.singletonMap( ACTION_INDEX, getMetadata( strIndex, strId ) ) );
+        appendLine( document );
+        _listIds.add( strId );
+        return this;
+    }
+
+    /**
+     * Add a partial update of an existing document
+     * 
+     * @param strIndex
+     *            the index name
+     * @param strId
+     *            the document id
+     * @param mapFields
+     *            the fields to update
+     * @return this builder
+     */
+    public BulkRequestBuilder update( String strIndex, String strId, Map<String, Object> mapFields )
+    {
+        appendLine( Collections.singletonMap( ACTION_UPDATE, getMetadata( strIndex, strId ) ) );
+        appendLine( Collections.singletonMap( FIELD_DOC, mapFields ) );
+        _listIds.add( strId );
+        return this;
+    }
+
+    /**
+     * Add the deletion of a document. A document that does not exist is ignored by the server.
+     * 
+     * @param strIndex
+     *            the index name
+     * @param strId
+     *            the document id
+     * @return this builder
+     */
+    public BulkRequestBuilder delete( String strIndex, String strId )
+    {
+        appendLine( Collections.singletonMap( ACTION_DELETE, getMetadata( strIndex, strId ) ) );
+        _listIds.add( strId );
+        return this;
+    }
+
+    /**
+     * Returns true if no operation has been added
+     * 
+     * @return true if the request is empty
+     */
+    public boolean isEmpty( )
+    {
+        return _listIds.isEmpty( );
+    }
+
+    /**
+     * Returns the number of operations
+     * 
+     * @return the number of operations
+     */
+    public int size( )
+    {
+        return _listIds.size( );
+    }
+
+    /**
+     * Returns the ids of the documents, in the order of the operations
+     * 
+     * @return the document ids
+     */
+    public List<String> getIds( )
+    {
+        return Collections.unmodifiableList( _listIds );
+    }
+
+    /**
+     * Returns the body of the request
+     * 
+     * @return the body
+     */
+    public String build( )
+    {
+        return _sbBody.toString( );
+    }
+
+    /**
+     * Serialize an object to JSON
+     * 
+     * @param object
+     *            the object
+     * @return the JSON string
+     */
+    public static String toJson( Object object )
+    {
+        try
+        {
+            return MAPPER.writeValueAsString( object );
+        }
+        catch( JsonProcessingException e )
+        {
+            throw new AppException( "Unable to serialize the document : " + e.getMessage( ), e );
+        }
+    }
+
+    private void appendLine( Object object )
+    {
+        _sbBody.append( toJson( object ) ).append( '\n' );
+    }
+
+    private static Map<String, Object> getMetadata( String strIndex, String strId )
+    {
+        Map<String, Object> mapMetadata = new LinkedHashMap<>( );
+        mapMetadata.put( FIELD_INDEX, strIndex );
+        mapMetadata.put( FIELD_ID, strId );
+        return mapMetadata;
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import fr.paris.lutece.portal.service.util.AppException;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Minimal Elasticsearch REST client for the operations the elasticdata plugin does not provide: partial updates and bulk requests built by this
+ * module. It uses the server configured for the elasticdata plugin.
+ */
+@ApplicationScoped
+public class FormsElasticClient
+{
+    private static final String PATH_BULK = "/_bulk";
+    private static final String PATH_UPDATE_BY_QUERY = "/%s/_update_by_query?conflicts=proceed&wait_for_completion=false&requests_per_second=%s";
+    private static final String PATH_TASK = "/_tasks/%s";
+    private static final String PATH_CAT_INDICES = "/_cat/indices/%s?h=index&format=json";
+    private static final String PATH_ALIAS = "/_alias/%s";
+    private static final String PATH_ALIASES = "/_aliases";
+    private static final String PATH_SETTINGS = "/%s/_settings";
+    private static final String PATH_REFRESH = "/%s/_refresh";
+    private static final String HEADER_CONTENT_TYPE = "Content-Type";
+    private static final String HEADER_AUTHORIZATION = "Authorization";
+    private static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+    private static final String CONTENT_TYPE_JSON = "application/json";
+    private static final String ERROR_DOCUMENT_MISSING = "document_missing_exception";
+    private static final long TIMEOUT = 60L;
+    private static final int HTTP_NOT_FOUND = 404;
+
+    @Inject
+    @ConfigProperty( name = "elasticdata.elastic_server.url", defaultValue = "http://localhost:9200" )
+    private String _strServerUrl;
+    @Inject
+    @ConfigProperty( name = "elasticdata.elastic_server.login" )
+    private Optional<String> _strLogin;
+    @Inject
+    @ConfigProperty( name = "elasticdata.elastic_server.pwd" )
+    private Optional<String> _strPassword;
+
+    private final ObjectMapper _mapper = new ObjectMapper( );
+    private HttpClient _httpClient;
+
+    /**
+     * Constructor used by CDI
+     */
+    public FormsElasticClient( )
+    {
+    }
+
+    /**
+     * Constructor for a given server
+     * 
+     * @param strServerUrl
+     *            the server url
+     * @param strLogin
+     *            the login, or null
+     * @param strPassword
+     *            the password, or null
+     */
+    public FormsElasticClient( String strServerUrl, String strLogin, String strPassword )
+    {
+        _strServerUrl = strServerUrl;
+        _strLogin = Optional.ofNullable( strLogin );
+        _strPassword = Optional.ofNullable( strPassword );
+        init( );
+    }
+
+    /**
+     * Create the HTTP client
+     */
+    @PostConstruct
+    void init( )
+    {
+        _httpClient = HttpClient.newBuilder( ).connectTimeout( Duration.ofSeconds( TIMEOUT ) ).build( );
+        if ( _strServerUrl.endsWith( "/" ) )
+        {
+            _strServerUrl = _strServerUrl.substring( 0, _strServerUrl.length( ) - 1 );
+        }
+    }
+
+    /**
+     * Send a bulk request
+     * 
+     * @param bulk
+     *            the bulk request
+     * @return the ids of the updated documents that do not exist in the index
+     */
+    public List<String> bulk( BulkRequestBuilder bulk )
+    {
+        List<String> listMissingIds = new ArrayList<>( );
+        if ( bulk.isEmpty( ) )
+        {
+            return listMissingIds;
+        }
+        JsonNode response = send( "POST", PATH_BULK, CONTENT_TYPE_NDJSON, bulk.build( ) );
+        if ( response.path( "errors" ).asBoolean( false ) )
+        {
+            List<String> listErrors = new ArrayList<>( );
+            for ( JsonNode item : response.path( "items" ) )
+            {
+                JsonNode result = item.elements( ).next( );
+                JsonNode error = result.get( "error" );
+                if ( error != null )
+                {
+                    if ( ERROR_DOCUMENT_MISSING.equals( error.path( "type" ).asText( ) ) )
+                    {
+                        listMissingIds.add( result.path( "_id" ).asText( ) );
+                    }
+                    else
+                    {
+                        listErrors.add( result.path( "_id" ).asText( ) + " : " + error.path( "reason" ).asText( ) );
+                    }
+                }
+            }
+            if ( !listErrors.isEmpty( ) )
+            {
+                throw new AppException( "Elasticsearch bulk request failed for " + listErrors.size( ) + " documents, first error : " + listErrors.get( 0 ) );
+            }
+        }
+        return listMissingIds;
+    }
+
+    /**
+     * Start an update by query task. The task runs on the server, throttled to the given rate, and its progress is read with
+     * {@link #isTaskCompleted(String)}.
+     * 
+     * @param strIndex
+     *            the index name
+     * @param strJson
+     *            the body of the request: the query and the script
+     * @param fRequestsPerSecond
+     *            the maximum number of documents updated per second, -1 for no throttling
+     * @return the task id
+     */
+    public String updateByQuery( String strIndex, String strJson, float fRequestsPerSecond )
+    {
+        JsonNode response = send( "POST", String.format( PATH_UPDATE_BY_QUERY, strIndex, fRequestsPerSecond ), CONTENT_TYPE_JSON, strJson );
+        return response.path( "task" ).asText( );
+    }
+
+    /**
+     * Returns true if a task is completed
+     * 
+     * @param strTaskId
+     *            the task id
+     * @return true if the task is completed
+     * @throws AppException
+     *             if the task completed with failures
+     */
+    public boolean isTaskCompleted( String strTaskId )
+    {
+        JsonNode task = send( "GET", String.format( PATH_TASK, strTaskId ), CONTENT_TYPE_JSON, null );
+        if ( !task.path( "completed" ).asBoolean( false ) )
+        {
+            return false;
+        }
+        JsonNode failures = task.path( "response" ).path( "failures" );
+        if ( task.has( "error" ) || failures.size( ) > 0 )
+        {
+            JsonNode error = task.has( "error" ) ? task.get( "error" ) : failures.get( 0 );
+            throw new AppException( "Elasticsearch task " + strTaskId + " failed : " + error );
+        }
+        return true;
+    }
+
+    /**
+     * Create an index
+     * 
+     * @param strIndex
+     *            the index name
+     * @param strMappings
+     *            the settings and mappings of the index, or null
+     */
+    public void createIndex( String strIndex, String strMappings )
+    {
+        send( "PUT", "/" + strIndex, strMappings );
+    }
+
+    /**
+     * Delete an index if it exists
+     * 
+     * @param strIndex
+     *            the index name
+     */
+    public void deleteIndex( String strIndex )
+    {
+        try
+        {
+            send( "DELETE", "/" + strIndex, null );
+        }
+        catch( ElasticStatusException e )
+        {
+            if ( e.getStatus( ) != HTTP_NOT_FOUND )
+            {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the indices matching a pattern. An alias is resolved to the indices it points to.
+     * 
+     * @param strPattern
+     *            the index name or pattern
+     * @return the list of the index names, empty if no index matches
+     */
+    public List<String> getIndices( String strPattern )
+    {
+        List<String> listIndices = new ArrayList<>( );
+        try
+        {
+            for ( JsonNode index : send( "GET", String.format( PATH_CAT_INDICES, strPattern ), null ) )
+            {
+                listIndices.add( index.path( "index" ).asText( ) );
+            }
+        }
+        catch( ElasticStatusException e )
+        {
+            if ( e.getStatus( ) != HTTP_NOT_FOUND )
+            {
+                throw e;
+            }
+        }
+        return listIndices;
+    }
+
+    /**
+     * Returns the names of the indices an alias points to
+     * 
+     * @param strAlias
+     *            the alias
+     * @return the list of the index names, empty if the alias does not exist
+     */
+    public List<String> getAliasIndices( String strAlias )
+    {
+        List<String> listIndices = new ArrayList<>( );
+        try
+        {
+            Iterator<String> itIndices = send( "GET", String.format( PATH_ALIAS, strAlias ), null ).fieldNames( );
+            itIndices.forEachRemaining( listIndices::add );
+        }
+        catch( ElasticStatusException e )
+        {
+            if ( e.getStatus( ) != HTTP_NOT_FOUND )
+            {
+                throw e;
+            }
+        }
+        return listIndices;
+    }
+
+    /**
+     * Apply atomically a list of alias actions
+     * 
+     * @param strJson
+     *            the body of the request: the actions
+     */
+    public void updateAliases( String strJson )
+    {
+        send( "POST", PATH_ALIASES, strJson );
+    }
+
+    /**
+     * Update the dynamic settings of an index
+     * 
+     * @param strIndex
+     *            the index name
+     * @param strJson
+     *            the settings
+     */
+    public void updateSettings( String strIndex, String strJson )
+    {
+        send( "PUT", String.format( PATH_SETTINGS, strIndex ), strJson );
+    }
+
+    /**
+     * Refresh an index, making its documents visible to the searches
+     * 
+     * @param strIndex
+     *            the index name
+     */
+    public void refresh( String strIndex )
+    {
+        send( "POST", String.format( PATH_REFRESH, strIndex ), null );
+    }
+
+    /**
+     * Send a JSON request
+     * 
+     * @param strMethod
+     *            the HTTP method
+     * @param strPath
+     *            the path, starting with a slash
+     * @param strJson
+     *            the JSON body, or null
+     * @return the JSON response
+     */
+    public JsonNode send( String strMethod, String strPath, String strJson )
+    {
+        return send( strMethod, strPath, CONTENT_TYPE_JSON, strJson );
+    }
+
+    /**
+     * Send a request
+     * 
+     * @param strMethod
+     *            the HTTP method
+     * @param strPath
+     *            the path, starting with a slash
+     * @param strContentType
+     *            the content type of the body
+     * @param strBody
+     *            the body, or null
+     * @return the JSON response
+     */
+    private JsonNode send( String strMethod, String strPath, String strContentType, String strBody )
+    {
+        HttpRequest.Builder builder = HttpRequest.newBuilder( URI.create( _strServerUrl + strPath ) ).timeout( Duration.ofSeconds( TIMEOUT ) )
+                .header( HEADER_CONTENT_TYPE, strContentType )
+                .method( strMethod, ( strBody == null ) ? HttpRequest.BodyPublishers.noBody( )
+                        : HttpRequest.BodyPublishers.ofString( strBody, StandardCharsets.UTF_8 ) );
+        if ( _strLogin.isPresent( ) && !_strLogin.get( ).isEmpty( ) )
+        {
+            String strCredentials = _strLogin.get( ) + ":" + _strPassword.orElse( "" );
+            builder.header( HEADER_AUTHORIZATION, "Basic " + Base64.getEncoder( ).encodeToString( strCredentials.getBytes( StandardCharsets.UTF_8 ) ) );
+        }
+        try
+        {
+            HttpResponse<String> response = _httpClient.send( builder.build( ), HttpResponse.BodyHandlers.ofString( StandardCharsets.UTF_8 ) );
+            if ( response.statusCode( ) >= 300 )
+            {
+                throw new ElasticStatusException( response.statusCode( ), strMethod + " " + strPath + " returned " + response.statusCode( ) + " : " + response.body( ) );
+            }
+            return _mapper.readTree( response.body( ) );
+        }
+        catch( IOException e )
+        {
+            throw new AppException( "Elasticsearch request " + strMethod + " " + strPath + " failed : " + e.getMessage( ), e );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new AppException( "Elasticsearch request " + strMethod + " " + strPath + " interrupted", e );
+        }
+    }
+
+    /**
+     * Error returned by the server with an HTTP status
+     */
+    public static class ElasticStatusException extends AppException
+    {
+        private static final long serialVersionUID = 1L;
+        private final int _nStatus;
+
+        /**
+         * Constructor
+         * 
+         * @param nStatus
+         *            the HTTP status
+         * @param strMessage
+         *            the message
+         */
+        public ElasticStatusException( int nStatus, String strMessage )
+        {
+            super( strMessage );
+            _nStatus = nStatus;
+        }
+
+        /**
+         * Returns the HTTP status
+         * 
+         * @return the HTTP status
+         */
+        public int getStatus( )
+        {
+            return _nStatus;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import fr.paris.lutece.portal.service.util.AppException;
+
+/**
+ * Blue/green management of an index behind an alias: each full reindex builds a new versioned index ( alias_v1, alias_v2, ... ) while the searches
+ * and the incremental indexing keep using the alias, which is then swapped atomically to the new index. The new index is bulk loaded without
+ * refresh and without replicas, and gets back the settings of its mappings, or the server defaults, before the swap.
+ */
+public class VersionedIndexManager
+{
+    private static final String VERSION_SEPARATOR = "_v";
+    private static final String SETTING_REFRESH_INTERVAL = "refresh_interval";
+    private static final String SETTING_NUMBER_OF_REPLICAS = "number_of_replicas";
+    private static final String BULK_LOAD_REFRESH_INTERVAL = "-1";
+    private static final int BULK_LOAD_REPLICAS = 0;
+
+    private final FormsElasticClient _elasticClient;
+    private final ObjectMapper _mapper = new ObjectMapper( );
+
+    /**
+     * Constructor
+     * 
+     * @param elasticClient
+     *            the client of the Elasticsearch server
+     */
+    public VersionedIndexManager( FormsElasticClient elasticClient )
+    {
+        _elasticClient = elasticClient;
+    }
+
+    /**
+     * Create the next version of the index of an alias, with the bulk load settings. The versions left by an unfinished build, which the alias does
+     * not point to, are deleted.
+     * 
+     * @param strAlias
+     *            the alias
+     * @param strMappings
+     *            the settings and mappings of the index, or null
+     * @return the name of the new index
+     */
+    public String createNextVersion( String strAlias, String strMappings )
+    {
+        List<String> listAliasIndices = _elasticClient.getAliasIndices( strAlias );
+        int nVersion = 0;
+        for ( String strIndex : _elasticClient.getIndices( strAlias + VERSION_SEPARATOR + "*" ) )
+        {
+            nVersion = Math.max( nVersion, getVersion( strAlias, strIndex ) );
+            if ( !listAliasIndices.contains( strIndex ) )
+            {
+                _elasticClient.deleteIndex( strIndex );
+            }
+        }
+        String strIndex = strAlias + VERSION_SEPARATOR + ( nVersion + 1 );
+        ObjectNode body = parse( strMappings );
+        ObjectNode indexSettings = getObject( getObject( body, "settings" ), "index" );
+        indexSettings.put( SETTING_REFRESH_INTERVAL, BULK_LOAD_REFRESH_INTERVAL );
+        indexSettings.put( SETTING_NUMBER_OF_REPLICAS, BULK_LOAD_REPLICAS );
+        _elasticClient.createIndex( strIndex, BulkRequestBuilder.toJson( body ) );
+        return strIndex;
+    }
+
+    /**
+     * Make a new index the one of an alias: its settings are restored and it is refreshed, then the alias is moved to it in a single request and
+     * the indices the alias pointed to are deleted. An index having the name of the alias, created before the blue/green reindexing, is replaced by
+     * the alias.
+     * 
+     * @param strAlias
+     *            the alias
+     * @param strIndex
+     *            the new index
+     * @param strMappings
+     *            the settings and mappings the index has been created with, or null
+     */
+    public void promote( String strAlias, String strIndex, String strMappings )
+    {
+        JsonNode indexSettings = parse( strMappings ).path( "settings" ).path( "index" );
+        ObjectNode settings = _mapper.createObjectNode( );
+        ObjectNode restoredSettings = settings.putObject( "index" );
+        restoredSettings.set( SETTING_REFRESH_INTERVAL, indexSettings.get( SETTING_REFRESH_INTERVAL ) );
+        restoredSettings.set( SETTING_NUMBER_OF_REPLICAS, indexSettings.get( SETTING_NUMBER_OF_REPLICAS ) );
+        _elasticClient.updateSettings( strIndex, BulkRequestBuilder.toJson( settings ) );
+        _elasticClient.refresh( strIndex );
+
+        List<String> listPreviousIndices = new ArrayList<>( _elasticClient.getAliasIndices( strAlias ) );
+        listPreviousIndices.remove( strIndex );
+        ObjectNode body = _mapper.createObjectNode( );
+        ArrayNode actions = body.putArray( "actions" );
+        if ( listPreviousIndices.isEmpty( ) && _elasticClient.getIndices( strAlias ).contains( strAlias ) )
+        {
+            actions.addObject( ).putObject( "remove_index" ).put( "index", strAlias );
+        }
+        for ( String strPreviousIndex : listPreviousIndices )
+        {
+            actions.addObject( ).putObject( "remove" ).put( "index", strPreviousIndex ).put( "alias", strAlias );
+        }
+        actions.addObject( ).putObject( "add" ).put( "index", strIndex ).put( "alias", strAlias ).put( "is_write_index", true );
+        _elasticClient.updateAliases( BulkRequestBuilder.toJson( body ) );
+
+        for ( String strPreviousIndex : listPreviousIndices )
+        {
+            _elasticClient.deleteIndex( strPreviousIndex );
+        }
+    }
+
+    /**
+     * Delete the index of a name and create it again as a concrete index, when the blue/green reindexing is not used. If the name is an alias left
+     * by a blue/green reindexing, the indices it points to and the other versions are deleted instead, which removes the alias.
+     * 
+     * @param strName
+     *            the index or alias name
+     * @param strMappings
+     *            the settings and mappings of the index, or null
+     */
+    public void recreate( String strName, String strMappings )
+    {
+        List<String> listAliasIndices = _elasticClient.getAliasIndices( strName );
+        if ( listAliasIndices.isEmpty( ) )
+        {
+            _elasticClient.deleteIndex( strName );
+        }
+        for ( String strIndex : listAliasIndices )
+        {
+            _elasticClient.deleteIndex( strIndex );
+        }
+        for ( String strIndex : _elasticClient.getIndices( strName + VERSION_SEPARATOR + "*" ) )
+        {
+            if ( getVersion( strName, strIndex ) > 0 )
+            {
+                _elasticClient.deleteIndex( strIndex );
+            }
+        }
+        _elasticClient.createIndex( strName, strMappings );
+    }
+
+    /**
+     * Returns the version of an index of an alias
+     * 
+     * @param strAlias
+     *            the alias
+     * @param strIndex
+     *            the index name
+     * @return the version, 0 if the name is not the one of a version
+     */
+    static int getVersion( String strAlias, String strIndex )
+    {
+        Matcher matcher = Pattern.compile( Pattern.quote( strAlias + VERSION_SEPARATOR ) + "(\\d{1,9})" ).matcher( strIndex );
+        return matcher.matches( ) ? Integer.parseInt( matcher.group( 1 ) ) : 0;
+    }
+
+    /**
+     * Parse a JSON object
+     * 
+     * @param strJson
+     *            the JSON, or null
+     * @return the object, empty if the JSON is null or blank
+     */
+    private ObjectNode parse( String strJson )
+    {
+        if ( StringUtils.isBlank( strJson ) )
+        {
+            return _mapper.createObjectNode( );
+        }
+        try
+        {
+            return (ObjectNode) _mapper.readTree( strJson );
+        }
+        catch( JsonProcessingException | ClassCastException e )
+        {
+            throw new AppException( "Invalid index mappings : " + e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Returns a child object of a JSON object, created if it does not exist
+     * 
+     * @param parent
+     *            the parent object
+     * @param strName
+     *            the name of the child
+     * @return the child object
+     */
+    private static ObjectNode getObject( ObjectNode parent, String strName )
+    {
+        JsonNode child = parent.get( strName );
+        return ( child instanceof ObjectNode ) ? (ObjectNode) child : parent.putObject( strName );
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Chooses the number of form response ids read per SQL batch. The size is read from the configuration and, in adaptive mode, is adjusted after
+ * each batch from the measured time per id, so that the latency of a full batch gets closer to the target latency.
+ */
+@ApplicationScoped
+public class BatchSizeService
+{
+    private static final double SMOOTHING_FACTOR = 0.3;
+    private static final double MAX_GROWTH_FACTOR = 2.0;
+    private static final double MAX_SHRINK_FACTOR = 0.5;
+
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.indexing.batchSize", defaultValue = "80" )
+    private int _nConfiguredBatchSize;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.indexing.batchSize.adaptive", defaultValue = "false" )
+    private boolean _bAdaptive;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.indexing.batchSize.min", defaultValue = "20" )
+    private int _nMinBatchSize;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.indexing.batchSize.max", defaultValue = "2000" )
+    private int _nMaxBatchSize;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.indexing.batchSize.targetLatency", defaultValue = "500" )
+    private long _lTargetLatency;
+
+    private final AtomicInteger _nBatchSize = new AtomicInteger( );
+    private final AtomicLong _lBatchCount = new AtomicLong( );
+    private final AtomicLong _lIdCount = new AtomicLong( );
+    private final AtomicLong _lRowCount = new AtomicLong( );
+    private final AtomicLong _lTotalLatency = new AtomicLong( );
+    private volatile long _lLastLatency;
+    private volatile double _dAverageLatency;
+    private double _dAverageLatencyPerId;
+
+    /**
+     * Initialize the batch size from the configuration, correcting the values that would stop the indexing
+     */
+    @PostConstruct
+    void init( )
+    {
+        if ( _nMinBatchSize < 1 )
+        {
+            AppLogService.error( "elasticdata-forms : invalid minimum batch size " + _nMinBatchSize + ", 1 is used" );
+            _nMinBatchSize = 1;
+        }
+        if ( _nMaxBatchSize < _nMinBatchSize )
+        {
+            AppLogService.error( "elasticdata-forms : invalid maximum batch size " + _nMaxBatchSize + ", " + _nMinBatchSize + " is used" );
+            _nMaxBatchSize = _nMinBatchSize;
+        }
+        if ( _nConfiguredBatchSize < _nMinBatchSize || _nConfiguredBatchSize > _nMaxBatchSize )
+        {
+            int nBatchSize = Math.max( _nMinBatchSize, Math.min( _nMaxBatchSize, _nConfiguredBatchSize ) );
+            AppLogService.error( "elasticdata-forms : invalid batch size " + _nConfiguredBatchSize + ", " + nBatchSize + " is used" );
+            _nConfiguredBatchSize = nBatchSize;
+        }
+        if ( _lTargetLatency < 1 )
+        {
+            AppLogService.error( "elasticdata-forms : invalid target latency " + _lTargetLatency + ", 1 is used" );
+            _lTargetLatency = 1;
+        }
+        _nBatchSize.set( _nConfiguredBatchSize );
+    }
+
+    /**
+     * Returns the number of ids to read per batch
+     * 
+     * @return the batch size
+     */
+    public int getBatchSize( )
+    {
+        return _nBatchSize.get( );
+    }
+
+    /**
+     * Record the measures of a batch, and adjust the batch size in adaptive mode
+     * 
+     * @param nIdCount
+     *            the number of form response ids of the batch
+     * @param lRowCount
+     *            the number of rows read for the batch
+     * @param lLatency
+     *            the time spent on the batch in milliseconds
+     */
+    public void recordBatch( int nIdCount, long lRowCount, long lLatency )
+    {
+        _lBatchCount.incrementAndGet( );
+        _lIdCount.addAndGet( nIdCount );
+        _lRowCount.addAndGet( lRowCount );
+        _lTotalLatency.addAndGet( lLatency );
+        _lLastLatency = lLatency;
+
+        synchronized( this )
+        {
+            _dAverageLatency = ( _dAverageLatency == 0 ) ? lLatency : ( SMOOTHING_FACTOR * lLatency + ( 1 - SMOOTHING_FACTOR ) * _dAverageLatency );
+            if ( _bAdaptive && nIdCount > 0 )
+            {
+                // the latency grows with the number of rows read, which grows with the number of ids, so the time per id
+                // measured on a partial batch (last page, form with few responses) also tells the size to use
+                double dLatencyPerId = Math.max( lLatency, 1 ) / (double) nIdCount;
+                _dAverageLatencyPerId = ( _dAverageLatencyPerId == 0 ) ? dLatencyPerId
+                        : ( SMOOTHING_FACTOR * dLatencyPerId + ( 1 - SMOOTHING_FACTOR ) * _dAverageLatencyPerId );
+                int nCurrentSize = _nBatchSize.get( );
+                double dSize = Math.max( nCurrentSize * MAX_SHRINK_FACTOR,
+                        Math.min( nCurrentSize * MAX_GROWTH_FACTOR, _lTargetLatency / _dAverageLatencyPerId ) );
+                _nBatchSize.set( (int) Math.max( _nMinBatchSize, Math.min( _nMaxBatchSize, Math.round( dSize ) ) ) );
+            }
+        }
+    }
+
+    /**
+     * Returns true if the batch size is adjusted from the measures
+     * 
+     * @return true in adaptive mode
+     */
+    public boolean isAdaptive( )
+    {
+        return _bAdaptive;
+    }
+
+    /**
+     * Returns the number of batches processed
+     * 
+     * @return the number of batches
+     */
+    public long getBatchCount( )
+    {
+        return _lBatchCount.get( );
+    }
+
+    /**
+     * Returns the average number of rows read per form response id
+     * 
+     * @return the number of rows per id
+     */
+    public double getRowsPerId( )
+    {
+        long lIdCount = _lIdCount.get( );
+        return ( lIdCount == 0 ) ? 0 : (double) _lRowCount.get( ) / lIdCount;
+    }
+
+    /**
+     * Returns the latency of the last batch
+     * 
+     * @return the latency in milliseconds
+     */
+    public long getLastLatency( )
+    {
+        return _lLastLatency;
+    }
+
+    /**
+     * Returns the smoothed latency of the recent batches
+     * 
+     * @return the latency in milliseconds
+     */
+    public long getAverageLatency( )
+    {
+        return Math.round( _dAverageLatency );
+    }
+
+    /**
+     * Returns the mean latency of all the batches
+     * 
+     * @return the latency in milliseconds
+     */
+    public long getMeanLatency( )
+    {
+        long lBatchCount = _lBatchCount.get( );
+        return ( lBatchCount == 0 ) ? 0 : _lTotalLatency.get( ) / lBatchCount;
+    }
+}
@@ -0,0 +1,972 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import fr.paris.lutece.plugins.elasticdata.business.DataObject;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FailedBatch;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FailedBatchHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseDocuments;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIdFilter;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIdHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIdIterator;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIndexationHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormsDataSource;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.IndexingLock;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.IndexingLockHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.ReindexCheckpoint;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.ReindexCheckpointHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.ReindexTask;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.ReindexTaskHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache.FormsIndexingCacheService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic.BulkRequestBuilder;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic.FormsElasticClient;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic.VersionedIndexManager;
+import fr.paris.lutece.plugins.forms.business.Form;
+import fr.paris.lutece.plugins.forms.business.form.search.IndexerAction;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Reindexes form responses in the background: all of them in a rebuilt index, those of a single form in full, optionally restricted to a creation
+ * date range, or only for the questions whose indexing has been changed. The jobs run one after the other; the last ones are kept to report their
+ * progress. A job can be paused, resumed or cancelled between two pages. A single full reindex runs across the cluster, guarded by a lock held in
+ * the database. The full reindex saves a checkpoint after each page so that it can be resumed after an interruption, and records the pages it fails
+ * to index so that they can be retried. In blue/green mode, the full reindex builds a new version of the index while the target index name of the
+ * data source, an alias, keeps pointing to the previous one until the new one is complete. The incremental indexing tasks received during the
+ * build, which are written to the previous version, are recorded and replayed against the new one before and after the alias is moved.
+ */
+@ApplicationScoped
+public class FormReindexService
+{
+    private static final String THREAD_NAME = "elasticdata-forms-reindex";
+    private static final String BUILD_STATE_THREAD_NAME = "elasticdata-forms-build-state";
+    private static final String LOCK_FULL_REINDEX = "full_reindex";
+    private static final String CHECKPOINT_FULL_REINDEX = "full_reindex";
+    private static final long MIN_HEARTBEAT_INTERVAL = 1000L;
+    private static final Runnable NO_HEARTBEAT = ( ) -> {
+    };
+    private static final String SCRIPT_REMOVE_QUESTIONS = "if ( ctx._source.userResponses != null ) { for ( def prefix : params.prefixes ) "
+            + "{ ctx._source.userResponses.keySet( ).removeIf( key -> key.startsWith( prefix ) ); } }";
+
+    @Inject
+    private FormsDataSource _formsDataSource;
+    @Inject
+    private FormsElasticClient _elasticClient;
+    @Inject
+    private FormsIndexingCacheService _cacheService;
+
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.reindex.pageSize", defaultValue = "200" )
+    private int _nPageSize;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.reindex.history", defaultValue = "20" )
+    private int _nHistorySize;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.questionChanges.requestsPerSecond", defaultValue = "500" )
+    private float _fRequestsPerSecond;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.questionChanges.pause", defaultValue = "200" )
+    private long _lPause;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.reindex.lock.timeToLive", defaultValue = "300000" )
+    private long _lLockTimeToLive;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.reindex.maxConsecutiveFailures", defaultValue = "10" )
+    private int _nMaxConsecutiveFailures;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.reindex.blueGreen.enabled", defaultValue = "false" )
+    private boolean _bBlueGreen;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.reindex.blueGreen.stateCheckInterval", defaultValue = "10000" )
+    private long _lBuildStateCheckInterval;
+
+    private final String _strNodeId = ManagementFactory.getRuntimeMXBean( ).getName( ) + "-" + UUID.randomUUID( );
+
+    private final AtomicInteger _nLastJobId = new AtomicInteger( );
+    private final LinkedList<ReindexJob> _listJobs = new LinkedList<>( );
+    private ExecutorService _executor;
+    private ScheduledExecutorService _buildStateScheduler;
+    private VersionedIndexManager _indexManager;
+    private volatile boolean _bIndexBuilding;
+
+    /**
+     * Start the reindexing thread
+     */
+    @PostConstruct
+    void init( )
+    {
+        _executor = Executors.newSingleThreadExecutor( runnable -> {
+            Thread thread = new Thread( runnable, THREAD_NAME );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        _indexManager = new VersionedIndexManager( _elasticClient );
+        // the state of the build is shared by the nodes of the cluster through the checkpoint
+        _buildStateScheduler = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, BUILD_STATE_THREAD_NAME );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        _buildStateScheduler.scheduleWithFixedDelay( this::refreshBuildState, 0L, _lBuildStateCheckInterval, TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Stop the reindexing thread
+     */
+    @PreDestroy
+    void shutdown( )
+    {
+        _executor.shutdownNow( );
+        _buildStateScheduler.shutdownNow( );
+    }
+
+    /**
+     * Submit the reindexing of form responses
+     * 
+     * @param strFormTitle
+     *            the title of the form
+     * @param filter
+     *            the filter of the form responses to reindex
+     * @return the job
+     */
+    public ReindexJob submit( String strFormTitle, FormResponseIdFilter filter )
+    {
+        ReindexJob job = addJob( ReindexJob.Type.REINDEX, strFormTitle, filter );
+        _executor.execute( ( ) -> run( job ) );
+        return job;
+    }
+
+    /**
+     * Submit the full reindexing of the form responses: the index is rebuilt with the documents of all the form responses, or the interrupted full
+     * reindexing is resumed from its checkpoint
+     * 
+     * @param bResume
+     *            true to resume the interrupted full reindexing, false to start again from the first form response
+     * @return the job, or null if a full reindex is already running on this node or on another node of the cluster
+     */
+    public ReindexJob submitFullReindex( boolean bResume )
+    {
+        if ( isFullReindexActive( ) )
+        {
+            return null;
+        }
+        ReindexJob job = addJob( ReindexJob.Type.FULL_REINDEX, null, new FormResponseIdFilter( ) );
+        _executor.execute( ( ) -> runFullReindex( job, bResume ) );
+        return job;
+    }
+
+    /**
+     * Submit the reindexing of the batches that have failed during the last full reindexing
+     * 
+     * @return the job, or null if a full reindex is already running on this node or on another node of the cluster
+     */
+    public ReindexJob submitRetryFailedBatches( )
+    {
+        if ( isFullReindexActive( ) )
+        {
+            return null;
+        }
+        ReindexJob job = addJob( ReindexJob.Type.RETRY_FAILED_BATCHES, null, new FormResponseIdFilter( ) );
+        _executor.execute( ( ) -> runRetryFailedBatches( job ) );
+        return job;
+    }
+
+    /**
+     * Returns the checkpoint of the interrupted full reindexing
+     * 
+     * @return the checkpoint, or null if the last full reindexing has completed
+     */
+    public ReindexCheckpoint getFullReindexCheckpoint( )
+    {
+        return ReindexCheckpointHome.findByName( CHECKPOINT_FULL_REINDEX );
+    }
+
+    /**
+     * Returns the batches that have failed during the last full reindexing and have not been reindexed since
+     * 
+     * @return the list of the failed batches
+     */
+    public List<FailedBatch> getFailedBatches( )
+    {
+        return FailedBatchHome.getFailedBatches( CHECKPOINT_FULL_REINDEX );
+    }
+
+    /**
+     * Record an incremental indexing task if a new version of the index is being built, so that it is replayed against the new version
+     * 
+     * @param nIdFormResponse
+     *            the form response id
+     * @param nIdTask
+     *            the indexing task
+     */
+    public void recordIncrementalTask( int nIdFormResponse, int nIdTask )
+    {
+        if ( isIndexBuilding( ) )
+        {
+            ReindexTaskHome.create( nIdFormResponse, nIdTask );
+        }
+    }
+
+    /**
+     * Record the form responses a job updates through the target index if a new version of the index is being built, so that they are indexed
+     * again in the new version
+     * 
+     * @param listIdFormResponse
+     *            the form response ids
+     */
+    private void recordJobTasks( List<Integer> listIdFormResponse )
+    {
+        if ( isIndexBuilding( ) )
+        {
+            ReindexTaskHome.createAll( listIdFormResponse, IndexerAction.TASK_MODIFY );
+        }
+    }
+
+    /**
+     * Returns true if a new version of the index is being built, or has been left unfinished by a full reindex that can be resumed. The state is
+     * kept in memory: it is set by the full reindex of this node and read again from the checkpoint at each check interval.
+     * 
+     * @return true if a new version of the index is being built
+     */
+    private boolean isIndexBuilding( )
+    {
+        return _bIndexBuilding;
+    }
+
+    /**
+     * Read the state of the build from the checkpoint of the full reindex
+     */
+    private void refreshBuildState( )
+    {
+        try
+        {
+            ReindexCheckpoint checkpoint = ReindexCheckpointHome.findByName( CHECKPOINT_FULL_REINDEX );
+            _bIndexBuilding = checkpoint != null && checkpoint.getIndexName( ) != null;
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "elasticdata-forms : unable to read the state of the full reindexing", e );
+        }
+    }
+
+    /**
+     * Returns true if a full reindex or a retry of its failed batches is pending or running on this node, or holds the lock on another node
+     * 
+     * @return true if a full reindex is active
+     */
+    public boolean isFullReindexActive( )
+    {
+        synchronized( _listJobs )
+        {
+            if ( _listJobs.stream( ).anyMatch( job -> ( job.getType( ) == ReindexJob.Type.FULL_REINDEX || job.getType( ) == ReindexJob.Type.RETRY_FAILED_BATCHES )
+                    && job.isActive( ) ) )
+            {
+                return true;
+            }
+        }
+        IndexingLock lock = IndexingLockHome.findByName( LOCK_FULL_REINDEX );
+        return lock != null && lock.getOwner( ) != null && lock.getHeartbeat( ) != null
+                && lock.getHeartbeat( ).getTime( ) > System.currentTimeMillis( ) - _lLockTimeToLive;
+    }
+
+    /**
+     * Pause a job at the end of the page being processed
+     * 
+     * @param nIdJob
+     *            the job id
+     */
+    public void pause( int nIdJob )
+    {
+        ReindexJob job = findJob( nIdJob );
+        if ( job != null )
+        {
+            job.requestPause( );
+        }
+    }
+
+    /**
+     * Resume a paused job
+     * 
+     * @param nIdJob
+     *            the job id
+     */
+    public void resume( int nIdJob )
+    {
+        ReindexJob job = findJob( nIdJob );
+        if ( job != null )
+        {
+            job.resume( );
+        }
+    }
+
+    /**
+     * Cancel a job at the end of the page being processed
+     * 
+     * @param nIdJob
+     *            the job id
+     */
+    public void cancel( int nIdJob )
+    {
+        ReindexJob job = findJob( nIdJob );
+        if ( job != null )
+        {
+            job.requestCancel( );
+        }
+    }
+
+    /**
+     * Returns a job
+     * 
+     * @param nIdJob
+     *            the job id
+     * @return the job, or null if it is not kept anymore
+     */
+    private ReindexJob findJob( int nIdJob )
+    {
+        synchronized( _listJobs )
+        {
+            return _listJobs.stream( ).filter( job -> job.getId( ) == nIdJob ).findFirst( ).orElse( null );
+        }
+    }
+
+    /**
+     * Submit the update of the documents of a form after a change of its indexed questions: the responses to the removed questions are dropped
+     * from the documents and the responses to the added questions are merged into them, without reindexing the documents.
+     * 
+     * @param form
+     *            the form
+     * @param setAddedQuestion
+     *            the ids of the questions added to the indexing
+     * @param setRemovedQuestion
+     *            the ids of the questions removed from the indexing
+     * @return the job
+     */
+    public ReindexJob submitQuestionChanges( Form form, Set<Integer> setAddedQuestion, Set<Integer> setRemovedQuestion )
+    {
+        FormResponseIdFilter filter = new FormResponseIdFilter( );
+        filter.setIdForm( form.getId( ) );
+        ReindexJob job = addJob( ReindexJob.Type.QUESTION_CHANGES, form.getTitle( ), filter );
+        Set<Integer> setAdded = new HashSet<>( setAddedQuestion );
+        Set<Integer> setRemoved = new HashSet<>( setRemovedQuestion );
+        _executor.execute( ( ) -> runQuestionChanges( job, form, setAdded, setRemoved ) );
+        return job;
+    }
+
+    /**
+     * Create a job and add it to the list of jobs, dropping the oldest finished ones
+     * 
+     * @param type
+     *            the job type
+     * @param strFormTitle
+     *            the title of the form
+     * @param filter
+     *            the filter of the form responses
+     * @return the job
+     */
+    private ReindexJob addJob( ReindexJob.Type type, String strFormTitle, FormResponseIdFilter filter )
+    {
+        ReindexJob job = new ReindexJob( _nLastJobId.incrementAndGet( ), type, strFormTitle, filter );
+        synchronized( _listJobs )
+        {
+            _listJobs.addFirst( job );
+            while ( _listJobs.size( ) > _nHistorySize && _listJobs.getLast( ).getEndDate( ) != null )
+            {
+                _listJobs.removeLast( );
+            }
+        }
+        return job;
+    }
+
+    /**
+     * Returns the jobs, the latest first
+     * 
+     * @return the jobs
+     */
+    public List<ReindexJob> getJobs( )
+    {
+        synchronized( _listJobs )
+        {
+            return Collections.unmodifiableList( new ArrayList<>( _listJobs ) );
+        }
+    }
+
+    /**
+     * Run a job. If a new version of the index is being built, each page is recorded to be indexed again in it.
+     * 
+     * @param job
+     *            the job
+     */
+    private void run( ReindexJob job )
+    {
+        if ( job.isCancelRequested( ) )
+        {
+            job.cancel( );
+            return;
+        }
+        try
+        {
+            job.start( FormResponseIdHome.countFormResponses( job.getFilter( ) ) );
+            if ( indexPages( job, _formsDataSource.getTargetIndexName( ), NO_HEARTBEAT, null ) )
+            {
+                job.complete( );
+                AppLogService.info( "elasticdata-forms : reindexing of the form " + job.getFilter( ).getIdForm( ) + " completed, " + job.getProcessed( )
+                        + " form responses" );
+            }
+            else
+            {
+                job.cancel( );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            job.fail( e.getMessage( ) );
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "elasticdata-forms : reindexing of the form " + job.getFilter( ).getIdForm( ) + " failed", e );
+            job.fail( e.getMessage( ) );
+        }
+    }
+
+    /**
+     * Run a full reindex job. When it starts from the first form response, the failed batches of the previous full reindex are forgotten and the
+     * index is created with the mappings of the data source: in blue/green mode a new version of the index is created, otherwise the target index
+     * is deleted and created again. When it is resumed, the indexing goes on in the index of its checkpoint after its last form response. The job
+     * holds the cluster lock from start to end and refreshes it after each page. The checkpoint is kept if the job is cancelled or fails, and
+     * removed when it completes.
+     * 
+     * @param job
+     *            the job
+     * @param bResume
+     *            true to resume from the checkpoint, if there is one
+     */
+    private void runFullReindex( ReindexJob job, boolean bResume )
+    {
+        if ( job.isCancelRequested( ) )
+        {
+            job.cancel( );
+            return;
+        }
+        if ( !acquireLock( job ) )
+        {
+            return;
+        }
+        try
+        {
+            job.start( FormResponseIdHome.countFormResponses( job.getFilter( ) ) );
+            // the forms and workflows may have been modified since they were cached
+            _cacheService.invalidateAll( );
+            String strTargetIndex = _formsDataSource.getTargetIndexName( );
+            ReindexCheckpoint checkpoint = bResume ? ReindexCheckpointHome.findByName( CHECKPOINT_FULL_REINDEX ) : null;
+            if ( checkpoint == null )
+            {
+                checkpoint = new ReindexCheckpoint( );
+                checkpoint.setName( CHECKPOINT_FULL_REINDEX );
+                checkpoint.setStartDate( new Timestamp( System.currentTimeMillis( ) ) );
+                FailedBatchHome.removeByCheckpointName( CHECKPOINT_FULL_REINDEX );
+                // the tasks recorded during a previous build are read from the database by the new one
+                ReindexTaskHome.removeAll( );
+                if ( _bBlueGreen )
+                {
+                    checkpoint.setIndexName( _indexManager.createNextVersion( strTargetIndex, _formsDataSource.getMappings( ) ) );
+                }
+                else
+                {
+                    _indexManager.recreate( strTargetIndex, _formsDataSource.getMappings( ) );
+                    // the records describe the documents of the deleted index
+                    FormResponseIndexationHome.removeAll( );
+                }
+                ReindexCheckpointHome.save( checkpoint );
+                _bIndexBuilding = checkpoint.getIndexName( ) != null;
+                if ( _bIndexBuilding )
+                {
+                    // the other nodes notice the build within the check interval: their changes are recorded before the first page is indexed
+                    Thread.sleep( _lBuildStateCheckInterval );
+                    refreshLock( );
+                }
+            }
+            else
+            {
+                _bIndexBuilding = checkpoint.getIndexName( ) != null;
+                job.resumeFrom( checkpoint.getProcessed( ) );
+                AppLogService.info( "elasticdata-forms : full reindexing resumed after the form response " + checkpoint.getLastIdFormResponse( ) + ", batch "
+                        + checkpoint.getBatchSequence( ) );
+            }
+            String strIndex = ( checkpoint.getIndexName( ) != null ) ? checkpoint.getIndexName( ) : strTargetIndex;
+            if ( indexPages( job, strIndex, this::refreshLock, checkpoint ) )
+            {
+                if ( checkpoint.getIndexName( ) != null )
+                {
+                    replayRecordedTasks( strIndex );
+                    _indexManager.promote( strTargetIndex, strIndex, _formsDataSource.getMappings( ) );
+                    AppLogService.info( "elasticdata-forms : the alias " + strTargetIndex + " now points to the index " + strIndex );
+                    // the tasks recorded while the alias was moved may have been written to the previous version
+                    replayRecordedTasks( strIndex );
+                }
+                ReindexCheckpointHome.remove( CHECKPOINT_FULL_REINDEX );
+                _bIndexBuilding = false;
+                ReindexTaskHome.removeAll( );
+                job.complete( );
+                AppLogService.info( "elasticdata-forms : full reindexing completed, " + job.getProcessed( ) + " form responses, " + job.getFailedBatches( )
+                        + " failed batches" );
+            }
+            else
+            {
+                job.cancel( );
+                AppLogService.info( "elasticdata-forms : full reindexing cancelled after " + job.getProcessed( ) + " form responses" );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            job.fail( e.getMessage( ) );
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "elasticdata-forms : full reindexing failed", e );
+            job.fail( e.getMessage( ) );
+        }
+        finally
+        {
+            IndexingLockHome.release( LOCK_FULL_REINDEX, _strNodeId );
+        }
+    }
+
+    /**
+     * Run a job reindexing the failed batches of the last full reindex, under the cluster lock of the full reindex. A batch is removed once indexed,
+     * and kept if it fails again.
+     * 
+     * @param job
+     *            the job
+     */
+    private void runRetryFailedBatches( ReindexJob job )
+    {
+        if ( job.isCancelRequested( ) )
+        {
+            job.cancel( );
+            return;
+        }
+        if ( !acquireLock( job ) )
+        {
+            return;
+        }
+        try
+        {
+            Map<FailedBatch, List<Integer>> mapIdFormResponses = new LinkedHashMap<>( );
+            for ( FailedBatch failedBatch : FailedBatchHome.getFailedBatches( CHECKPOINT_FULL_REINDEX ) )
+            {
+                mapIdFormResponses.put( failedBatch, getIdFormResponses( failedBatch ) );
+            }
+            job.start( mapIdFormResponses.values( ).stream( ).mapToInt( List::size ).sum( ) );
+            // the batches of an unfinished blue/green reindex belong to the index being built
+            ReindexCheckpoint checkpoint = ReindexCheckpointHome.findByName( CHECKPOINT_FULL_REINDEX );
+            String strIndex = ( checkpoint != null && checkpoint.getIndexName( ) != null ) ? checkpoint.getIndexName( )
+                    : _formsDataSource.getTargetIndexName( );
+            for ( Map.Entry<FailedBatch, List<Integer>> entry : mapIdFormResponses.entrySet( ) )
+            {
+                if ( !job.checkpoint( getHeartbeatInterval( ), this::refreshLock ) )
+                {
+                    job.cancel( );
+                    return;
+                }
+                try
+                {
+                    indexPage( strIndex, entry.getValue( ) );
+                    FailedBatchHome.remove( entry.getKey( ).getId( ) );
+                }
+                catch( RuntimeException e )
+                {
+                    AppLogService.error( "elasticdata-forms : retry of the batch " + entry.getKey( ).getBatchSequence( ) + " failed", e );
+                    job.addFailedBatch( );
+                }
+                job.addProcessed( entry.getValue( ).size( ) );
+                refreshLock( );
+            }
+            job.complete( );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            job.fail( e.getMessage( ) );
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "elasticdata-forms : retry of the failed batches failed", e );
+            job.fail( e.getMessage( ) );
+        }
+        finally
+        {
+            IndexingLockHome.release( LOCK_FULL_REINDEX, _strNodeId );
+        }
+    }
+
+    /**
+     * Take the cluster lock of the full reindex for a job, or make the job fail
+     * 
+     * @param job
+     *            the job
+     * @return true if the lock has been taken
+     */
+    private boolean acquireLock( ReindexJob job )
+    {
+        if ( IndexingLockHome.tryAcquire( LOCK_FULL_REINDEX, _strNodeId, _lLockTimeToLive ) )
+        {
+            return true;
+        }
+        IndexingLock lock = IndexingLockHome.findByName( LOCK_FULL_REINDEX );
+        job.fail( "a full reindex is already running on " + ( ( lock != null ) ? lock.getOwner( ) : "another node" ) );
+        return false;
+    }
+
+    /**
+     * Returns the ids of the form responses of a failed batch that still exist
+     * 
+     * @param failedBatch
+     *            the failed batch
+     * @return the list of the form response ids
+     */
+    private List<Integer> getIdFormResponses( FailedBatch failedBatch )
+    {
+        FormResponseIdFilter filter = new FormResponseIdFilter( );
+        filter.setIdFormResponseTo( failedBatch.getLastIdFormResponse( ) );
+        List<Integer> listIdFormResponse = new ArrayList<>( );
+        new FormResponseIdIterator( _nPageSize, filter, failedBatch.getFirstIdFormResponse( ) - 1 ).forEachRemaining( listIdFormResponse::addAll );
+        return listIdFormResponse;
+    }
+
+    /**
+     * Index the full documents of the form responses of a job, page by page. The pause and the cancellation of the job are checked between two
+     * pages. With a checkpoint, the indexing starts after its last form response and the checkpoint is saved after each page; a page that fails
+     * is recorded as a failed batch instead of stopping the job, unless too many pages fail in a row.
+     * 
+     * @param job
+     *            the job
+     * @param strIndex
+     *            the index name
+     * @param heartbeat
+     *            called after each page and while the job is paused
+     * @param checkpoint
+     *            the checkpoint of the job, or null if the job is not resumable
+     * @return false if the job has been cancelled
+     * @throws InterruptedException
+     *             if the thread is interrupted while the job is paused
+     * @throws AppException
+     *             if a page fails without checkpoint, or if too many pages fail in a row
+     */
+    private boolean indexPages( ReindexJob job, String strIndex, Runnable heartbeat, ReindexCheckpoint checkpoint ) throws InterruptedException
+    {
+        int nLastIdFormResponse = ( checkpoint != null ) ? checkpoint.getLastIdFormResponse( ) : 0;
+        FormResponseIdIterator iterator = new FormResponseIdIterator( _nPageSize, job.getFilter( ), nLastIdFormResponse );
+        int nConsecutiveFailures = 0;
+        while ( iterator.hasNext( ) )
+        {
+            if ( !job.checkpoint( getHeartbeatInterval( ), heartbeat ) )
+            {
+                return false;
+            }
+            List<Integer> listIdFormResponse = iterator.next( );
+            if ( checkpoint == null )
+            {
+                recordJobTasks( listIdFormResponse );
+                indexPage( strIndex, listIdFormResponse );
+                job.addProcessed( listIdFormResponse.size( ) );
+            }
+            else
+            {
+                RuntimeException failure = null;
+                checkpoint.setBatchSequence( checkpoint.getBatchSequence( ) + 1 );
+                try
+                {
+                    indexPage( strIndex, listIdFormResponse );
+                    nConsecutiveFailures = 0;
+                }
+                catch( RuntimeException e )
+                {
+                    failure = e;
+                    nConsecutiveFailures++;
+                    addFailedBatch( job, checkpoint, listIdFormResponse, e );
+                }
+                job.addProcessed( listIdFormResponse.size( ) );
+                checkpoint.setLastIdFormResponse( listIdFormResponse.get( listIdFormResponse.size( ) - 1 ) );
+                checkpoint.setProcessed( job.getProcessed( ) );
+                ReindexCheckpointHome.save( checkpoint );
+                if ( failure != null && nConsecutiveFailures >= _nMaxConsecutiveFailures )
+                {
+                    throw new AppException( "elasticdata-forms : reindexing stopped after " + nConsecutiveFailures + " failed batches in a row", failure );
+                }
+            }
+            heartbeat.run( );
+        }
+        return true;
+    }
+
+    /**
+     * Replay against a new version of the index the incremental indexing tasks recorded during its build: the deleted form responses are deleted
+     * from it and the other ones are indexed again in full. Only the latest task of a form response within a page is replayed.
+     * 
+     * @param strIndex
+     *            the index name
+     */
+    private void replayRecordedTasks( String strIndex )
+    {
+        int nCount = 0;
+        List<ReindexTask> listTasks;
+        do
+        {
+            listTasks = ReindexTaskHome.getOldestTasks( _nPageSize );
+            if ( !listTasks.isEmpty( ) )
+            {
+                Map<Integer, Integer> mapTasks = new LinkedHashMap<>( );
+                listTasks.forEach( task -> mapTasks.put( task.getIdResource( ), task.getTaskType( ) ) );
+                List<Integer> listIdFormResponse = new ArrayList<>( );
+                BulkRequestBuilder bulkDelete = new BulkRequestBuilder( );
+                for ( Map.Entry<Integer, Integer> entry : mapTasks.entrySet( ) )
+                {
+                    if ( entry.getValue( ) == IndexerAction.TASK_DELETE )
+                    {
+                        bulkDelete.delete( strIndex, String.valueOf( entry.getKey( ) ) );
+                    }
+                    else
+                    {
+                        listIdFormResponse.add( entry.getKey( ) );
+                    }
+                }
+                if ( !listIdFormResponse.isEmpty( ) )
+                {
+                    indexPage( strIndex, listIdFormResponse );
+                }
+                _elasticClient.bulk( bulkDelete );
+                ReindexTaskHome.removeUpTo( listTasks.get( listTasks.size( ) - 1 ).getId( ) );
+                nCount += listTasks.size( );
+                refreshLock( );
+            }
+        }
+        while ( listTasks.size( ) == _nPageSize );
+        AppLogService.info( "elasticdata-forms : " + nCount + " incremental indexing tasks recorded during the full reindexing replayed" );
+    }
+
+    /**
+     * Index the full documents of a page of form responses
+     * 
+     * @param strIndex
+     *            the index name
+     * @param listIdFormResponse
+     *            the ids of the form responses
+     */
+    private void indexPage( String strIndex, List<Integer> listIdFormResponse )
+    {
+        BulkRequestBuilder bulk = new BulkRequestBuilder( );
+        FormResponseDocuments documents = _formsDataSource.buildFullDocuments( listIdFormResponse );
+        for ( DataObject dataObject : documents.getDataObjects( ) )
+        {
+            bulk.index( strIndex, dataObject.getId( ), dataObject );
+        }
+        _elasticClient.bulk( bulk );
+        documents.storeIndexation( );
+    }
+
+    /**
+     * Record a page whose indexing has failed, to be retried later
+     * 
+     * @param job
+     *            the job
+     * @param checkpoint
+     *            the checkpoint of the job
+     * @param listIdFormResponse
+     *            the ids of the form responses of the page
+     * @param e
+     *            the failure
+     */
+    private static void addFailedBatch( ReindexJob job, ReindexCheckpoint checkpoint, List<Integer> listIdFormResponse, RuntimeException e )
+    {
+        AppLogService.error( "elasticdata-forms : indexing of the batch " + checkpoint.getBatchSequence( ) + " failed", e );
+        FailedBatch failedBatch = new FailedBatch( );
+        failedBatch.setCheckpointName( checkpoint.getName( ) );
+        failedBatch.setBatchSequence( checkpoint.getBatchSequence( ) );
+        failedBatch.setFirstIdFormResponse( listIdFormResponse.get( 0 ) );
+        failedBatch.setLastIdFormResponse( listIdFormResponse.get( listIdFormResponse.size( ) - 1 ) );
+        failedBatch.setErrorMessage( e.getMessage( ) );
+        FailedBatchHome.create( failedBatch );
+        job.addFailedBatch( );
+    }
+
+    /**
+     * Refresh the cluster lock of the full reindex
+     * 
+     * @throws AppException
+     *             if the lock has been taken by another node
+     */
+    private void refreshLock( )
+    {
+        if ( !IndexingLockHome.refresh( LOCK_FULL_REINDEX, _strNodeId ) )
+        {
+            throw new AppException( "elasticdata-forms : the full reindex lock has been taken by another node" );
+        }
+    }
+
+    /**
+     * Returns the interval between two heartbeats of a paused job, short enough for the lock not to become stale
+     * 
+     * @return the interval in milliseconds
+     */
+    private long getHeartbeatInterval( )
+    {
+        return Math.max( MIN_HEARTBEAT_INTERVAL, _lLockTimeToLive / 3 );
+    }
+
+    /**
+     * Run a question changes job. The removed questions are dropped by a throttled update by query on the server, the added questions are merged
+     * page by page with partial updates. If a new version of the index is being built, all the form responses of the form are first recorded to be
+     * indexed again in it.
+     * 
+     * @param job
+     *            the job
+     * @param form
+     *            the form
+     * @param setAddedQuestion
+     *            the ids of the questions added to the indexing
+     * @param setRemovedQuestion
+     *            the ids of the questions removed from the indexing
+     */
+    private void runQuestionChanges( ReindexJob job, Form form, Set<Integer> setAddedQuestion, Set<Integer> setRemovedQuestion )
+    {
+        if ( job.isCancelRequested( ) )
+        {
+            job.cancel( );
+            return;
+        }
+        try
+        {
+            job.start( FormResponseIdHome.countFormResponses( job.getFilter( ) ) );
+            String strIndex = _formsDataSource.getTargetIndexName( );
+            // the documents are updated through the alias, in the previous version of the index if a new one is being built
+            if ( isIndexBuilding( ) )
+            {
+                new FormResponseIdIterator( _nPageSize, job.getFilter( ) )
+                        .forEachRemaining( listPage -> ReindexTaskHome.createAll( listPage, IndexerAction.TASK_MODIFY ) );
+            }
+            if ( !setRemovedQuestion.isEmpty( ) )
+            {
+                removeQuestions( strIndex, form.getId( ), setRemovedQuestion );
+            }
+            if ( !setAddedQuestion.isEmpty( ) )
+            {
+                FormResponseIdIterator iterator = new FormResponseIdIterator( _nPageSize, job.getFilter( ) );
+                while ( iterator.hasNext( ) )
+                {
+                    if ( !job.checkpoint( getHeartbeatInterval( ), NO_HEARTBEAT ) )
+                    {
+                        job.cancel( );
+                        return;
+                    }
+                    List<Integer> listIdFormResponse = iterator.next( );
+                    BulkRequestBuilder bulk = new BulkRequestBuilder( );
+                    _formsDataSource.buildUserResponsesUpdates( listIdFormResponse, form, setAddedQuestion )
+                            .forEach( ( strId, mapFields ) -> bulk.update( strIndex, strId, mapFields ) );
+                    // the documents that have never been indexed are ignored
+                    _elasticClient.bulk( bulk );
+                    job.addProcessed( listIdFormResponse.size( ) );
+                    Thread.sleep( _lPause );
+                }
+            }
+            job.complete( );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            job.fail( e.getMessage( ) );
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "elasticdata-forms : update of the questions of the form " + form.getId( ) + " failed", e );
+            job.fail( e.getMessage( ) );
+        }
+    }
+
+    /**
+     * Drop the responses to some questions from all the documents of a form, and wait for the end of the server task
+     * 
+     * @param strIndex
+     *            the index name
+     * @param nIdForm
+     *            the form id
+     * @param setRemovedQuestion
+     *            the ids of the removed questions
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    private void removeQuestions( String strIndex, int nIdForm, Set<Integer> setRemovedQuestion ) throws InterruptedException
+    {
+        // the user responses keys are prefixed with the question id
+        List<String> listPrefixes = setRemovedQuestion.stream( ).map( nIdQuestion -> nIdQuestion + "." ).collect( Collectors.toList( ) );
+        Map<String, Object> mapScript = new LinkedHashMap<>( );
+        mapScript.put( "source", SCRIPT_REMOVE_QUESTIONS );
+        mapScript.put( "lang", "painless" );
+        mapScript.put( "params", Collections.singletonMap( "prefixes", listPrefixes ) );
+        Map<String, Object> mapBody = new LinkedHashMap<>( );
+        mapBody.put( "query", Collections.singletonMap( "term", Collections.singletonMap( "formId", nIdForm ) ) );
+        mapBody.put( "script", mapScript );
+
+        String strTaskId = _elasticClient.updateByQuery( strIndex, BulkRequestBuilder.toJson( mapBody ), _fRequestsPerSecond );
+        while ( !_elasticClient.isTaskCompleted( strTaskId ) )
+        {
+            Thread.sleep( Math.max( _lPause, 1000L ) );
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormsDataSource;
+import fr.paris.lutece.plugins.forms.business.form.search.IndexerAction;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Coalesces the incremental indexing requests of the form responses. Only the latest action of a form response is kept, and it is handed over once
+ * no new event has been received for the form response during the debounce window, or once the maximum wait since its first event is over: the
+ * workflow only changes are indexed with partial updates, the other requests are added to the incremental indexing service. The tasks that could
+ * not be handed over are kept pending and retried, up to a maximum number of attempts.
+ */
+@ApplicationScoped
+public class IncrementalIndexingBuffer
+{
+    private static final String THREAD_NAME = "elasticdata-forms-incremental-buffer";
+    private static final long MIN_FLUSH_PERIOD = 100L;
+
+    @Inject
+    private FormsDataSource _formsDataSource;
+    @Inject
+    private PartialUpdateIndexingService _partialUpdateService;
+    @Inject
+    private FormReindexService _reindexService;
+
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.incremental.debounceWindow", defaultValue = "2000" )
+    private long _lDebounceWindow;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.incremental.maxWait", defaultValue = "10000" )
+    private long _lMaxWait;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.incremental.maxPending", defaultValue = "10000" )
+    private int _nMaxPending;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.incremental.maxAttempts", defaultValue = "5" )
+    private int _nMaxAttempts;
+
+    private final Map<Integer, PendingTask> _mapPendingTasks = new ConcurrentHashMap<>( );
+    private ScheduledExecutorService _scheduler;
+
+    /**
+     * Start the periodic flush
+     */
+    @PostConstruct
+    void init( )
+    {
+        if ( isEnabled( ) )
+        {
+            _scheduler = Executors.newSingleThreadScheduledExecutor( runnable -> {
+                Thread thread = new Thread( runnable, THREAD_NAME );
+                thread.setDaemon( true );
+                return thread;
+            } );
+            long lPeriod = Math.max( MIN_FLUSH_PERIOD, _lDebounceWindow / 2 );
+            _scheduler.scheduleWithFixedDelay( ( ) -> flush( false ), lPeriod, lPeriod, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    /**
+     * Stop the periodic flush and hand over the pending tasks
+     */
+    @PreDestroy
+    void shutdown( )
+    {
+        if ( _scheduler != null )
+        {
+            _scheduler.shutdown( );
+        }
+        flush( true );
+    }
+
+    /**
+     * Add an indexing request. When the debounce is disabled, the request is handed to the incremental indexing service immediately.
+     * 
+     * @param nIdFormResponse
+     *            the form response id
+     * @param nIdTask
+     *            the indexing task
+     */
+    public void add( int nIdFormResponse, int nIdTask )
+    {
+        // the task is written to the previous version of the index if a new one is being built
+        _reindexService.recordIncrementalTask( nIdFormResponse, nIdTask );
+        if ( !isEnabled( ) )
+        {
+            for ( Integer nIdFailed : handOver( Collections.singletonMap( nIdFormResponse, nIdTask ) ).keySet( ) )
+            {
+                AppLogService.error( "elasticdata-forms : the indexing task of the form response " + nIdFailed + " is lost" );
+            }
+            return;
+        }
+        long lNow = System.currentTimeMillis( );
+        // the latest task replaces the pending one, but the maximum wait still runs from the first event
+        _mapPendingTasks.compute( nIdFormResponse,
+                ( nId, pending ) -> new PendingTask( nIdTask, ( pending == null ) ? lNow : pending._lFirstEvent, lNow, 0 ) );
+        if ( _mapPendingTasks.size( ) >= _nMaxPending )
+        {
+            _scheduler.execute( ( ) -> flush( true ) );
+        }
+    }
+
+    /**
+     * Hand the pending tasks over to the incremental indexing service
+     * 
+     * @param bAll
+     *            true to flush all the tasks, false to flush only those whose debounce window is over
+     */
+    void flush( boolean bAll )
+    {
+        long lNow = System.currentTimeMillis( );
+        long lLimit = lNow - _lDebounceWindow;
+        long lMaxWaitLimit = lNow - _lMaxWait;
+        Map<Integer, PendingTask> mapDuePendingTasks = new LinkedHashMap<>( );
+        Map<Integer, Integer> mapDueTasks = new LinkedHashMap<>( );
+        for ( Map.Entry<Integer, PendingTask> entry : _mapPendingTasks.entrySet( ) )
+        {
+            PendingTask task = entry.getValue( );
+            boolean bDue = bAll || task._lLastEvent <= lLimit || ( _lMaxWait > 0 && task._lFirstEvent <= lMaxWaitLimit );
+            // remove only if no newer event replaced the task in the meantime
+            if ( bDue && _mapPendingTasks.remove( entry.getKey( ), task ) )
+            {
+                mapDuePendingTasks.put( entry.getKey( ), task );
+                mapDueTasks.put( entry.getKey( ), task._nIdTask );
+            }
+        }
+        Map<Integer, Integer> mapFailedTasks = handOver( mapDueTasks );
+        for ( Integer nIdFormResponse : mapFailedTasks.keySet( ) )
+        {
+            requeue( nIdFormResponse, mapDuePendingTasks.get( nIdFormResponse ), lNow );
+        }
+        int nFlushed = mapDueTasks.size( ) - mapFailedTasks.size( );
+        if ( nFlushed > 0 && AppLogService.isDebugEnabled( ) )
+        {
+            AppLogService.debug( "elasticdata-forms : " + nFlushed + " incremental indexing tasks flushed, " + _mapPendingTasks.size( ) + " pending" );
+        }
+    }
+
+    /**
+     * Put a task that could not be handed over back in the pending tasks, unless a newer event has been received for the form response or the
+     * maximum number of attempts is reached
+     * 
+     * @param nIdFormResponse
+     *            the form response id
+     * @param task
+     *            the failed task
+     * @param lNow
+     *            the current time
+     */
+    private void requeue( int nIdFormResponse, PendingTask task, long lNow )
+    {
+        int nAttempts = task._nAttempts + 1;
+        if ( nAttempts >= _nMaxAttempts )
+        {
+            AppLogService.error( "elasticdata-forms : the indexing task of the form response " + nIdFormResponse + " is dropped after " + nAttempts
+                    + " failed attempts" );
+            return;
+        }
+        // retried after the debounce window
+        _mapPendingTasks.putIfAbsent( nIdFormResponse, new PendingTask( task._nIdTask, lNow, lNow, nAttempts ) );
+    }
+
+    /**
+     * Hand indexing tasks over: the workflow only changes are indexed with partial updates. When the indexation is tracked, the other form
+     * responses are indexed in full with the bulk requests of this module, so that their records are stored only once the documents are sent. The
+     * deletions, and the form responses that could not be indexed this way, are added to the incremental indexing service.
+     * 
+     * @param mapTasks
+     *            the indexing tasks, by form response id
+     * @return the tasks that could not be handed over, by form response id
+     */
+    private Map<Integer, Integer> handOver( Map<Integer, Integer> mapTasks )
+    {
+        Map<Integer, Integer> mapFailedTasks = new LinkedHashMap<>( );
+        if ( mapTasks.isEmpty( ) )
+        {
+            return mapFailedTasks;
+        }
+        List<Integer> listIdCreateTask = mapTasks.entrySet( ).stream( ).filter( entry -> entry.getValue( ) == IndexerAction.TASK_CREATE )
+                .map( Map.Entry::getKey ).collect( Collectors.toList( ) );
+        Set<Integer> setFullIndexing = new HashSet<>( listIdCreateTask );
+        try
+        {
+            setFullIndexing = new HashSet<>( _partialUpdateService.indexWorkflowChanges( listIdCreateTask ) );
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "elasticdata-forms : unable to index the workflow changes, the form responses are indexed in full", e );
+        }
+
+        List<Integer> listIdFullIndexing = new ArrayList<>( );
+        for ( Map.Entry<Integer, Integer> entry : mapTasks.entrySet( ) )
+        {
+            if ( entry.getValue( ) == IndexerAction.TASK_CREATE && !setFullIndexing.contains( entry.getKey( ) ) )
+            {
+                continue;
+            }
+            if ( entry.getValue( ) != IndexerAction.TASK_DELETE && _formsDataSource.isIndexationTracked( ) )
+            {
+                listIdFullIndexing.add( entry.getKey( ) );
+            }
+            else
+            {
+                addTask( entry.getKey( ), entry.getValue( ), mapFailedTasks );
+            }
+        }
+        for ( Integer nIdFormResponse : _partialUpdateService.indexDocuments( listIdFullIndexing ) )
+        {
+            addTask( nIdFormResponse, mapTasks.get( nIdFormResponse ), mapFailedTasks );
+        }
+        return mapFailedTasks;
+    }
+
+    /**
+     * Add a task to the incremental indexing service
+     * 
+     * @param nIdFormResponse
+     *            the form response id
+     * @param nIdTask
+     *            the indexing task
+     * @param mapFailedTasks
+     *            the tasks that could not be handed over, the task is added to it on failure
+     */
+    private void addTask( int nIdFormResponse, int nIdTask, Map<Integer, Integer> mapFailedTasks )
+    {
+        try
+        {
+            _formsDataSource.indexDocument( nIdFormResponse, nIdTask );
+        }
+        catch( RuntimeException e )
+        {
+            AppLogService.error( "Unable to add the indexing task of the form response " + nIdFormResponse, e );
+            mapFailedTasks.put( nIdFormResponse, nIdTask );
+        }
+    }
+
+    /**
+     * Returns true if the requests are debounced
+     * 
+     * @return true if the debounce window is positive
+     */
+    public boolean isEnabled( )
+    {
+        return _lDebounceWindow > 0;
+    }
+
+    /**
+     * Returns the number of pending tasks
+     * 
+     * @return the number of pending tasks
+     */
+    public int getPendingCount( )
+    {
+        return _mapPendingTasks.size( );
+    }
+
+    /**
+     * Pending indexing task
+     */
+    private static final class PendingTask
+    {
+        private final int _nIdTask;
+        private final long _lFirstEvent;
+        private final long _lLastEvent;
+        private final int _nAttempts;
+
+        PendingTask( int nIdTask, long lFirstEvent, long lLastEvent, int nAttempts )
+        {
+            _nIdTask = nIdTask;
+            _lFirstEvent = lFirstEvent;
+            _lLastEvent = lLastEvent;
+            _nAttempts = nAttempts;
+        }
+    }
+}
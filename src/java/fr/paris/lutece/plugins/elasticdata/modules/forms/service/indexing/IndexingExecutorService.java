@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import fr.paris.lutece.portal.service.util.AppException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Runs the indexing batches on a dedicated, bounded pool of threads instead of the common ForkJoinPool. The number of batches in flight never exceeds
+ * the number of threads, so the indexing never holds more database connections than the configured size. The pool can be disabled to run the batches
+ * sequentially in the calling thread.
+ */
+@ApplicationScoped
+public class IndexingExecutorService
+{
+    private static final String THREAD_NAME_PREFIX = "elasticdata-forms-indexing-";
+    private static final long SHUTDOWN_TIMEOUT = 30L;
+
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.indexing.executor.parallel", defaultValue = "true" )
+    private boolean _bParallel;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.indexing.executor.threads", defaultValue = "4" )
+    private int _nThreads;
+
+    private ExecutorService _executor;
+    private Semaphore _semaphoreInFlight;
+
+    /**
+     * Create the pool
+     */
+    @PostConstruct
+    void init( )
+    {
+        if ( _bParallel && _nThreads > 1 )
+        {
+            AtomicInteger nThreadCount = new AtomicInteger( );
+            _executor = Executors.newFixedThreadPool( _nThreads, runnable -> {
+                Thread thread = new Thread( runnable, THREAD_NAME_PREFIX + nThreadCount.incrementAndGet( ) );
+                thread.setDaemon( true );
+                return thread;
+            } );
+            _semaphoreInFlight = new Semaphore( _nThreads );
+        }
+    }
+
+    /**
+     * Stop the pool
+     */
+    @PreDestroy
+    void shutdown( )
+    {
+        if ( _executor != null )
+        {
+            _executor.shutdown( );
+            try
+            {
+                _executor.awaitTermination( SHUTDOWN_TIMEOUT, TimeUnit.SECONDS );
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+        }
+    }
+
+    /**
+     * Apply a task to each input and return the results in the order of the inputs. In parallel mode, the caller blocks while all the threads are busy.
+     * 
+     * @param <I>
+     *            the input type
+     * @param <R>
+     *            the result type
+     * @param listInputs
+     *            the inputs
+     * @param task
+     *            the task
+     * @return the results
+     */
+    public <I, R> List<R> mapAll( List<I> listInputs, Function<I, R> task )
+    {
+        List<R> listResults = new ArrayList<>( listInputs.size( ) );
+        if ( _executor == null || listInputs.size( ) < 2 )
+        {
+            for ( I input : listInputs )
+            {
+                listResults.add( task.apply( input ) );
+            }
+            return listResults;
+        }
+
+        List<Future<R>> listFutures = new ArrayList<>( listInputs.size( ) );
+        try
+        {
+            for ( I input : listInputs )
+            {
+                _semaphoreInFlight.acquire( );
+                listFutures.add( _executor.submit( ( ) -> {
+                    try
+                    {
+                        return task.apply( input );
+                    }
+                    finally
+                    {
+                        _semaphoreInFlight.release( );
+                    }
+                } ) );
+            }
+            for ( Future<R> future : listFutures )
+            {
+                listResults.add( future.get( ) );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new AppException( "Indexing interrupted", e );
+        }
+        catch( ExecutionException e )
+        {
+            // the submitted batches are left to complete so that each one releases its permit
+            throw new AppException( "Indexing batch failed : " + e.getCause( ).getMessage( ), e.getCause( ) );
+        }
+        return listResults;
+    }
+
+    /**
+     * Returns true if the batches are run on the dedicated pool
+     * 
+     * @return true in parallel mode
+     */
+    public boolean isParallel( )
+    {
+        return _executor != null;
+    }
+
+    /**
+     * Returns the number of threads of the pool
+     * 
+     * @return the number of threads, 1 in sequential mode
+     */
+    public int getThreads( )
+    {
+        return isParallel( ) ? _nThreads : 1;
+    }
+}
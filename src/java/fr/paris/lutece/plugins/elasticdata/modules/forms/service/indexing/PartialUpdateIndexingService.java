@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import fr.paris.lutece.plugins.elasticdata.business.DataObject;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseDataObject;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseDocuments;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIndexation;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIndexationHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormsDataSource;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic.BulkRequestBuilder;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic.FormsElasticClient;
+import fr.paris.lutece.plugins.forms.business.FormResponse;
+import fr.paris.lutece.plugins.forms.business.FormResponseHome;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Indexes the form responses whose user responses have not changed since their last indexing with partial updates: only the workflow fields of the
+ * formResponse documents are updated and only the new formResponseHistory documents are indexed, instead of rebuilding and sending the full
+ * documents. The other form responses can be indexed in full with the bulk requests of this module, so that what they index is recorded for their
+ * next partial updates.
+ */
+@ApplicationScoped
+public class PartialUpdateIndexingService
+{
+    @Inject
+    private FormsDataSource _formsDataSource;
+    @Inject
+    private FormsElasticClient _elasticClient;
+
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.reindex.pageSize", defaultValue = "200" )
+    private int _nPageSize;
+
+    /**
+     * Index the workflow only changes of a list of form responses
+     * 
+     * @param listIdFormResponse
+     *            the ids of the form responses to index
+     * @return the ids of the form responses that still need a full indexing
+     */
+    public List<Integer> indexWorkflowChanges( List<Integer> listIdFormResponse )
+    {
+        if ( !_formsDataSource.isPartialUpdates( ) || listIdFormResponse.isEmpty( ) )
+        {
+            return listIdFormResponse;
+        }
+
+        Map<Integer, FormResponseIndexation> mapIndexation = FormResponseIndexationHome.findByFormResponseIds( listIdFormResponse );
+        List<FormResponse> listWorkflowOnly = new ArrayList<>( );
+        Set<Integer> setWorkflowOnly = new HashSet<>( );
+        for ( FormResponse formResponse : FormResponseHome.getFormResponseUncompleteByPrimaryKeyList( listIdFormResponse ) )
+        {
+            if ( isWorkflowOnlyChange( formResponse, mapIndexation.get( formResponse.getId( ) ) ) )
+            {
+                listWorkflowOnly.add( formResponse );
+                setWorkflowOnly.add( formResponse.getId( ) );
+            }
+        }
+        List<Integer> listFullIndexing = listIdFormResponse.stream( ).filter( nId -> !setWorkflowOnly.contains( nId ) ).collect( Collectors.toList( ) );
+        if ( listWorkflowOnly.isEmpty( ) )
+        {
+            return listFullIndexing;
+        }
+
+        try
+        {
+            // the formResponse documents missing from the index are indexed in full
+            listFullIndexing.addAll( sendWorkflowDocuments( _formsDataSource.buildWorkflowDocuments( listWorkflowOnly, mapIndexation ) ) );
+        }
+        catch( AppException e )
+        {
+            // nothing is recorded, so the full indexing sends the new history documents again
+            AppLogService.error( "elasticdata-forms : partial update failed, the form responses are indexed in full", e );
+            listWorkflowOnly.forEach( formResponse -> listFullIndexing.add( formResponse.getId( ) ) );
+        }
+        return listFullIndexing;
+    }
+
+    /**
+     * Index form responses in full, page by page, with bulk requests sent by this module. The indexation records of a page are stored once its
+     * bulk request has succeeded.
+     * 
+     * @param listIdFormResponse
+     *            the ids of the form responses to index
+     * @return the ids of the form responses of the pages that failed, nothing being recorded for them
+     */
+    public List<Integer> indexDocuments( List<Integer> listIdFormResponse )
+    {
+        List<Integer> listFailed = new ArrayList<>( );
+        String strIndex = _formsDataSource.getTargetIndexName( );
+        for ( int nStart = 0; nStart < listIdFormResponse.size( ); nStart += _nPageSize )
+        {
+            List<Integer> listPage = listIdFormResponse.subList( nStart, Math.min( nStart + _nPageSize, listIdFormResponse.size( ) ) );
+            try
+            {
+                FormResponseDocuments documents = _formsDataSource.buildIncrementalDocuments( listPage );
+                BulkRequestBuilder bulk = new BulkRequestBuilder( );
+                for ( DataObject dataObject : documents.getDataObjects( ) )
+                {
+                    bulk.index( strIndex, dataObject.getId( ), dataObject );
+                }
+                _elasticClient.bulk( bulk );
+                documents.storeIndexation( );
+            }
+            catch( RuntimeException e )
+            {
+                AppLogService.error( "elasticdata-forms : indexing of " + listPage.size( ) + " form responses failed", e );
+                listFailed.addAll( listPage );
+            }
+        }
+        return listFailed;
+    }
+
+    /**
+     * Send the documents built for workflow changes: the formResponseHistory documents are indexed and the workflow fields of the formResponse
+     * documents are updated. Once the bulk request has succeeded, the indexation records are stored, except for the form responses whose
+     * formResponse document is missing from the index: their records are left to their full indexing.
+     * 
+     * @param documents
+     *            the documents built by {@link FormsDataSource#buildWorkflowDocuments(List, Map)}
+     * @return the ids of the form responses whose formResponse document is missing from the index
+     * @throws AppException
+     *             if the bulk request failed, in which case nothing is recorded
+     */
+    public Set<Integer> sendWorkflowDocuments( FormResponseDocuments documents )
+    {
+        String strIndex = _formsDataSource.getTargetIndexName( );
+        BulkRequestBuilder bulk = new BulkRequestBuilder( );
+        Map<String, Integer> mapIdFormResponseByDocument = new HashMap<>( );
+        for ( DataObject dataObject : documents.getDataObjects( ) )
+        {
+            FormResponseDataObject document = (FormResponseDataObject) dataObject;
+            if ( FormsDataSource.DOCUMENT_TYPE_NAME_FORM_RESPONSE_HISTORY.equals( document.getDocumentTypeName( ) ) )
+            {
+                bulk.index( strIndex, document.getId( ), document );
+            }
+            else
+            {
+                bulk.update( strIndex, document.getId( ), WorkflowTransitionIndexingService.getWorkflowFields( document ) );
+                mapIdFormResponseByDocument.put( document.getId( ), document.getFormResponseId( ) );
+            }
+        }
+
+        Set<Integer> setMissing = new LinkedHashSet<>( );
+        for ( String strMissingId : _elasticClient.bulk( bulk ) )
+        {
+            Integer nIdFormResponse = mapIdFormResponseByDocument.get( strMissingId );
+            if ( nIdFormResponse != null )
+            {
+                setMissing.add( nIdFormResponse );
+            }
+        }
+        if ( _formsDataSource.isIndexationTracked( ) )
+        {
+            documents.storeIndexation( setMissing );
+        }
+        return setMissing;
+    }
+
+    /**
+     * Returns true if the user responses of a form response have not changed since its last indexing
+     * 
+     * @param formResponse
+     *            the form response
+     * @param formResponseIndexation
+     *            what has been indexed for the form response, or null
+     * @return true if only the workflow data of the form response may have changed
+     */
+    private static boolean isWorkflowOnlyChange( FormResponse formResponse, FormResponseIndexation formResponseIndexation )
+    {
+        return formResponseIndexation != null && formResponseIndexation.getResponseUpdate( ) != null && formResponse.getUpdate( ) != null
+                && formResponseIndexation.getResponseUpdate( ).equals( formResponse.getUpdate( ) );
+    }
+}
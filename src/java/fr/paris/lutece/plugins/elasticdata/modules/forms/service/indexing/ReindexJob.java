@@ -0,0 +1,454 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing;
+
+import java.util.Date;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIdFilter;
+
+/**
+ * A background reindexing of the form responses of a form, in full or limited to the questions whose indexing has changed. The progress fields are updated by the indexing thread and read by the admin pages.
+ */
+public class ReindexJob
+{
+    /**
+     * Status of a reindexing job
+     */
+    public enum Status
+    {
+        PENDING,
+        RUNNING,
+        PAUSED,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    /**
+     * Type of a reindexing job
+     */
+    public enum Type
+    {
+        /** Full documents of the form responses */
+        REINDEX,
+        /** Full documents of all the form responses, in a rebuilt index */
+        FULL_REINDEX,
+        /** Partial updates of the user responses after a change of the indexed questions */
+        QUESTION_CHANGES,
+        /** Reindexing of the batches that have failed during the last full reindexing */
+        RETRY_FAILED_BATCHES
+    }
+
+    private final int _nId;
+    private final Type _type;
+    private final String _strFormTitle;
+    private final FormResponseIdFilter _filter;
+    private volatile Status _status = Status.PENDING;
+    private volatile int _nTotal;
+    private volatile int _nProcessed;
+    private volatile int _nResumedFrom;
+    private volatile int _nFailedBatches;
+    private volatile long _lStartTime;
+    private volatile long _lEndTime;
+    private volatile String _strErrorMessage;
+    private volatile boolean _bCancelRequested;
+    private boolean _bPauseRequested;
+    private volatile long _lPausedTime;
+    private volatile long _lPauseStart;
+
+    /**
+     * Constructor
+     * 
+     * @param nId
+     *            the job id
+     * @param type
+     *            the job type
+     * @param strFormTitle
+     *            the title of the reindexed form
+     * @param filter
+     *            the filter of the reindexed form responses
+     */
+    ReindexJob( int nId, Type type, String strFormTitle, FormResponseIdFilter filter )
+    {
+        _nId = nId;
+        _type = type;
+        _strFormTitle = strFormTitle;
+        _filter = filter;
+    }
+
+    /**
+     * Returns the job id
+     * 
+     * @return the job id
+     */
+    public int getId( )
+    {
+        return _nId;
+    }
+
+    /**
+     * Returns the job type
+     * 
+     * @return the job type
+     */
+    public Type getType( )
+    {
+        return _type;
+    }
+
+    /**
+     * Returns the title of the reindexed form
+     * 
+     * @return the form title
+     */
+    public String getFormTitle( )
+    {
+        return _strFormTitle;
+    }
+
+    /**
+     * Returns the filter of the reindexed form responses
+     * 
+     * @return the filter
+     */
+    public FormResponseIdFilter getFilter( )
+    {
+        return _filter;
+    }
+
+    /**
+     * Returns the status
+     * 
+     * @return the status
+     */
+    public Status getStatus( )
+    {
+        return _status;
+    }
+
+    /**
+     * Returns the number of form responses to reindex
+     * 
+     * @return the number of form responses, counted when the job starts
+     */
+    public int getTotal( )
+    {
+        return _nTotal;
+    }
+
+    /**
+     * Returns the number of form responses reindexed so far
+     * 
+     * @return the number of form responses reindexed
+     */
+    public int getProcessed( )
+    {
+        return _nProcessed;
+    }
+
+    /**
+     * Returns the number of form responses processed before the job was resumed
+     * 
+     * @return the number of form responses, 0 if the job has not been resumed
+     */
+    public int getResumedFrom( )
+    {
+        return _nResumedFrom;
+    }
+
+    /**
+     * Returns the number of batches whose indexing has failed
+     * 
+     * @return the number of failed batches
+     */
+    public int getFailedBatches( )
+    {
+        return _nFailedBatches;
+    }
+
+    /**
+     * Returns the progress
+     * 
+     * @return the percentage of the form responses reindexed
+     */
+    public int getProgress( )
+    {
+        if ( _status == Status.COMPLETED )
+        {
+            return 100;
+        }
+        return ( _nTotal > 0 ) ? (int) Math.min( 100L, 100L * _nProcessed / _nTotal ) : 0;
+    }
+
+    /**
+     * Returns the start date
+     * 
+     * @return the start date, or null if the job has not started
+     */
+    public Date getStartDate( )
+    {
+        return ( _lStartTime > 0 ) ? new Date( _lStartTime ) : null;
+    }
+
+    /**
+     * Returns the end date
+     * 
+     * @return the end date, or null if the job is not over
+     */
+    public Date getEndDate( )
+    {
+        return ( _lEndTime > 0 ) ? new Date( _lEndTime ) : null;
+    }
+
+    /**
+     * Returns the throughput of the job, the time spent paused excluded
+     * 
+     * @return the number of form responses processed per second
+     */
+    public long getThroughput( )
+    {
+        long lRunningTime = getRunningTime( );
+        return ( lRunningTime > 0 ) ? ( _nProcessed - _nResumedFrom ) * 1000L / lRunningTime : 0;
+    }
+
+    /**
+     * Returns the estimated end date of a running job, from its throughput
+     * 
+     * @return the estimated end date, or null if the job is not running or has not processed anything yet
+     */
+    public Date getEstimatedEndDate( )
+    {
+        long lThroughput = getThroughput( );
+        if ( _status != Status.RUNNING || lThroughput == 0 )
+        {
+            return null;
+        }
+        long lRemaining = Math.max( 0, _nTotal - _nProcessed );
+        return new Date( System.currentTimeMillis( ) + lRemaining * 1000L / lThroughput );
+    }
+
+    /**
+     * Returns true if the job is not over, so that it can be paused, resumed or cancelled
+     * 
+     * @return true if the job is pending, running or paused
+     */
+    public boolean isActive( )
+    {
+        return _status == Status.PENDING || _status == Status.RUNNING || _status == Status.PAUSED;
+    }
+
+    /**
+     * Returns true if the pause of the job has been requested
+     * 
+     * @return true if the job is paused or about to be
+     */
+    public synchronized boolean isPauseRequested( )
+    {
+        return _bPauseRequested;
+    }
+
+    /**
+     * Returns the error message of a failed job
+     * 
+     * @return the error message, or null
+     */
+    public String getErrorMessage( )
+    {
+        return _strErrorMessage;
+    }
+
+    /**
+     * Mark the job as started
+     * 
+     * @param nTotal
+     *            the number of form responses to reindex
+     */
+    void start( int nTotal )
+    {
+        _nTotal = nTotal;
+        _lStartTime = System.currentTimeMillis( );
+        _status = Status.RUNNING;
+    }
+
+    /**
+     * Record reindexed form responses
+     * 
+     * @param nCount
+     *            the number of form responses reindexed
+     */
+    void addProcessed( int nCount )
+    {
+        _nProcessed += nCount;
+    }
+
+    /**
+     * Resume the progress of an interrupted job: the form responses processed before the interruption are counted in the progress but not in the
+     * throughput
+     * 
+     * @param nProcessed
+     *            the number of form responses processed before the interruption
+     */
+    void resumeFrom( int nProcessed )
+    {
+        _nResumedFrom = nProcessed;
+        _nProcessed = nProcessed;
+    }
+
+    /**
+     * Count a batch whose indexing has failed
+     */
+    void addFailedBatch( )
+    {
+        _nFailedBatches++;
+    }
+
+    /**
+     * Request the pause of the job, which takes effect at the end of the page being processed
+     */
+    synchronized void requestPause( )
+    {
+        if ( isActive( ) )
+        {
+            _bPauseRequested = true;
+        }
+    }
+
+    /**
+     * Resume a paused job
+     */
+    synchronized void resume( )
+    {
+        _bPauseRequested = false;
+        notifyAll( );
+    }
+
+    /**
+     * Request the cancellation of the job, which takes effect at the end of the page being processed
+     */
+    synchronized void requestCancel( )
+    {
+        if ( isActive( ) )
+        {
+            _bCancelRequested = true;
+            notifyAll( );
+        }
+    }
+
+    /**
+     * Called by the worker between two pages: waits while the job is paused, calling the heartbeat at regular intervals
+     * 
+     * @param lHeartbeatInterval
+     *            the interval in milliseconds between two heartbeats while paused
+     * @param heartbeat
+     *            the heartbeat keeping the resources of the job alive while paused
+     * @return false if the job has been cancelled and must stop
+     * @throws InterruptedException
+     *             if the worker is interrupted while waiting
+     */
+    synchronized boolean checkpoint( long lHeartbeatInterval, Runnable heartbeat ) throws InterruptedException
+    {
+        if ( _bPauseRequested && !_bCancelRequested )
+        {
+            _lPauseStart = System.currentTimeMillis( );
+            _status = Status.PAUSED;
+            while ( _bPauseRequested && !_bCancelRequested )
+            {
+                wait( lHeartbeatInterval );
+                heartbeat.run( );
+            }
+            _lPausedTime += System.currentTimeMillis( ) - _lPauseStart;
+            _lPauseStart = 0;
+            _status = Status.RUNNING;
+        }
+        return !_bCancelRequested;
+    }
+
+    /**
+     * Returns true if the cancellation of the job has been requested
+     * 
+     * @return true if the job must stop
+     */
+    boolean isCancelRequested( )
+    {
+        return _bCancelRequested;
+    }
+
+    /**
+     * Mark the job as cancelled
+     */
+    void cancel( )
+    {
+        _lEndTime = System.currentTimeMillis( );
+        _status = Status.CANCELLED;
+    }
+
+    /**
+     * Returns the time spent running, the pauses excluded
+     * 
+     * @return the running time in milliseconds
+     */
+    private long getRunningTime( )
+    {
+        if ( _lStartTime == 0 )
+        {
+            return 0;
+        }
+        long lEnd = ( _lEndTime > 0 ) ? _lEndTime : System.currentTimeMillis( );
+        long lPauseStart = _lPauseStart;
+        long lPaused = _lPausedTime + ( ( lPauseStart > 0 ) ? lEnd - lPauseStart : 0 );
+        return lEnd - _lStartTime - lPaused;
+    }
+
+    /**
+     * Mark the job as completed
+     */
+    void complete( )
+    {
+        _lEndTime = System.currentTimeMillis( );
+        _status = Status.COMPLETED;
+    }
+
+    /**
+     * Mark the job as failed
+     * 
+     * @param strErrorMessage
+     *            the error message
+     */
+    void fail( String strErrorMessage )
+    {
+        _strErrorMessage = strErrorMessage;
+        _lEndTime = System.currentTimeMillis( );
+        _status = Status.FAILED;
+    }
+}
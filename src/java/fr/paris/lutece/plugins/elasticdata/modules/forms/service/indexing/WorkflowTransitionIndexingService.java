@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseDataObject;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIndexation;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIndexationHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormsDataSource;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.ResourceHistoryIndexationHome;
+import fr.paris.lutece.plugins.forms.business.FormResponse;
+import fr.paris.lutece.plugins.forms.business.FormResponseHome;
+import fr.paris.lutece.plugins.forms.business.form.search.IndexerAction;
+import fr.paris.lutece.plugins.workflowcore.business.resource.ResourceHistory;
+import fr.paris.lutece.portal.service.datastore.DatastoreService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Indexes the workflow transitions of the form responses as they are created. For each new resource history row, only the new formResponseHistory
+ * document is indexed and the workflow fields of the parent formResponse document are updated in place.
+ * <p>
+ * The rows are read by increasing id after the last id processed. A row whose transaction commits after a row with a greater id would be skipped, so
+ * the rows below the last id processed that have been created during the overlap window are read again, and those not indexed yet are indexed.
+ */
+@ApplicationScoped
+public class WorkflowTransitionIndexingService
+{
+    private static final String DATASTORE_KEY_LAST_ID_HISTORY = "elasticdata-forms.workflowTransitions.lastIdHistory";
+    private static final String FIELD_WORKFLOW_STATE = "workflowState";
+    private static final String FIELD_ACTION_NAME = "actionName";
+    private static final String FIELD_COMPLETE_DURATION = "completeDuration";
+
+    @Inject
+    private FormsDataSource _formsDataSource;
+    @Inject
+    private PartialUpdateIndexingService _partialUpdateService;
+    @Inject
+    private FormReindexService _reindexService;
+
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.workflowTransitions.pageSize", defaultValue = "500" )
+    private int _nPageSize;
+    @Inject
+    @ConfigProperty( name = "elasticdata-forms.workflowTransitions.overlapWindow", defaultValue = "300" )
+    private long _lOverlapWindow;
+
+    // the last id processed by time, to bound the ids read again
+    private final NavigableMap<Long, Integer> _mapLastIdHistoryByTime = new TreeMap<>( );
+    // the ids indexed during the overlap window, by indexing time
+    private final Map<Integer, Long> _mapRecentIdHistory = new HashMap<>( );
+
+    /**
+     * Index the resource history rows created since the last run. On the first run, the current position is recorded and nothing is indexed: the
+     * existing history is expected to be indexed by a full indexing.
+     * 
+     * @return the number of transitions indexed
+     */
+    public synchronized int indexNewTransitions( )
+    {
+        String strLastIdHistory = DatastoreService.getDataValue( DATASTORE_KEY_LAST_ID_HISTORY, null );
+        if ( strLastIdHistory == null )
+        {
+            int nMaxIdHistory = ResourceHistoryIndexationHome.getMaxIdHistory( FormsDataSource.RESSOURCE_TYPE );
+            DatastoreService.setDataValue( DATASTORE_KEY_LAST_ID_HISTORY, String.valueOf( nMaxIdHistory ) );
+            return 0;
+        }
+
+        int nLastIdHistory = Integer.parseInt( strLastIdHistory );
+        long lNow = System.currentTimeMillis( );
+        int nIndexed = indexLateTransitions( nLastIdHistory, lNow );
+        List<ResourceHistory> listNewHistory;
+        do
+        {
+            listNewHistory = ResourceHistoryIndexationHome.getResourceHistoryListAfter( nLastIdHistory, FormsDataSource.RESSOURCE_TYPE, _nPageSize );
+            if ( !listNewHistory.isEmpty( ) )
+            {
+                indexTransitions( listNewHistory, lNow );
+                nLastIdHistory = listNewHistory.get( listNewHistory.size( ) - 1 ).getId( );
+                DatastoreService.setDataValue( DATASTORE_KEY_LAST_ID_HISTORY, String.valueOf( nLastIdHistory ) );
+                nIndexed += listNewHistory.size( );
+            }
+        }
+        while ( listNewHistory.size( ) == _nPageSize );
+        _mapLastIdHistoryByTime.put( lNow, nLastIdHistory );
+
+        return nIndexed;
+    }
+
+    /**
+     * Index the rows below the last id processed that have been created during the overlap window and have not been indexed yet
+     * 
+     * @param nLastIdHistory
+     *            the last id processed
+     * @param lNow
+     *            the time of the run
+     * @return the number of transitions indexed
+     */
+    private int indexLateTransitions( int nLastIdHistory, long lNow )
+    {
+        if ( _lOverlapWindow <= 0 )
+        {
+            return 0;
+        }
+        long lWindowStart = lNow - _lOverlapWindow * 1000L;
+        // the rows committed late have an id greater than the last id processed when they were created
+        Map.Entry<Long, Integer> windowStart = _mapLastIdHistoryByTime.floorEntry( lWindowStart );
+        int nFromIdHistory = ( windowStart != null ) ? windowStart.getValue( ) : 0;
+        _mapLastIdHistoryByTime.headMap( ( windowStart != null ) ? windowStart.getKey( ) : lWindowStart, false ).clear( );
+        _mapRecentIdHistory.values( ).removeIf( lIndexed -> lIndexed < lWindowStart );
+
+        List<ResourceHistory> listLateHistory = ResourceHistoryIndexationHome
+                .getResourceHistoryListCreatedSince( nFromIdHistory, nLastIdHistory, new Timestamp( lWindowStart ), FormsDataSource.RESSOURCE_TYPE )
+                .stream( ).filter( resourceHistory -> !_mapRecentIdHistory.containsKey( resourceHistory.getId( ) ) ).collect( Collectors.toList( ) );
+        if ( !listLateHistory.isEmpty( ) )
+        {
+            indexTransitions( listLateHistory, lNow );
+        }
+        return listLateHistory.size( );
+    }
+
+    /**
+     * Index the new history documents and update the workflow fields of their parent documents with partial updates. The form responses whose
+     * parent document is missing from the index are indexed in full.
+     * 
+     * @param listNewHistory
+     *            the new resource history rows
+     * @param lNow
+     *            the time of the run
+     */
+    private void indexTransitions( List<ResourceHistory> listNewHistory, long lNow )
+    {
+        Map<Integer, Integer> mapFirstNewIdHistory = new LinkedHashMap<>( );
+        for ( ResourceHistory resourceHistory : listNewHistory )
+        {
+            mapFirstNewIdHistory.merge( resourceHistory.getIdResource( ), resourceHistory.getId( ), Math::min );
+        }
+        List<FormResponse> listFormResponse = FormResponseHome.getFormResponseUncompleteByPrimaryKeyList( new ArrayList<>( mapFirstNewIdHistory.keySet( ) ) );
+        mapFirstNewIdHistory.keySet( ).forEach( nIdFormResponse -> _reindexService.recordIncrementalTask( nIdFormResponse, IndexerAction.TASK_MODIFY ) );
+
+        Set<Integer> setMissing = _partialUpdateService
+                .sendWorkflowDocuments( _formsDataSource.buildWorkflowDocuments( listFormResponse, getIndexation( mapFirstNewIdHistory ) ) );
+        for ( Integer nIdFormResponse : _partialUpdateService.indexDocuments( new ArrayList<>( setMissing ) ) )
+        {
+            _formsDataSource.indexDocument( nIdFormResponse, IndexerAction.TASK_CREATE );
+        }
+        if ( _lOverlapWindow > 0 )
+        {
+            listNewHistory.forEach( resourceHistory -> _mapRecentIdHistory.put( resourceHistory.getId( ), lNow ) );
+        }
+    }
+
+    /**
+     * Returns the history already indexed for each form response, so that only the history documents from the first new row are built again
+     * 
+     * @param mapFirstNewIdHistory
+     *            the id of the first new row, by form response id
+     * @return what has already been indexed, by form response id
+     */
+    private Map<Integer, FormResponseIndexation> getIndexation( Map<Integer, Integer> mapFirstNewIdHistory )
+    {
+        Map<Integer, FormResponseIndexation> mapRecorded = _formsDataSource.isIndexationTracked( )
+                ? FormResponseIndexationHome.findByFormResponseIds( mapFirstNewIdHistory.keySet( ) )
+                : new HashMap<>( );
+        Map<Integer, FormResponseIndexation> mapIndexation = new HashMap<>( );
+        for ( Map.Entry<Integer, Integer> entry : mapFirstNewIdHistory.entrySet( ) )
+        {
+            FormResponseIndexation recorded = mapRecorded.get( entry.getKey( ) );
+            FormResponseIndexation formResponseIndexation = new FormResponseIndexation( );
+            formResponseIndexation.setIdFormResponse( entry.getKey( ) );
+            // a row committed late may have a lower id than the last history indexed for the form response
+            int nIdLastHistory = entry.getValue( ) - 1;
+            formResponseIndexation.setIdLastHistory( ( recorded != null ) ? Math.min( recorded.getIdLastHistory( ), nIdLastHistory ) : nIdLastHistory );
+            formResponseIndexation.setResponseUpdate( ( recorded != null ) ? recorded.getResponseUpdate( ) : null );
+            mapIndexation.put( entry.getKey( ), formResponseIndexation );
+        }
+        return mapIndexation;
+    }
+
+    /**
+     * Returns the workflow fields of a formResponse document
+     * 
+     * @param document
+     *            the document
+     * @return the workflow fields
+     */
+    public static Map<String, Object> getWorkflowFields( FormResponseDataObject document )
+    {
+        Map<String, Object> mapFields = new LinkedHashMap<>( );
+        mapFields.put( FIELD_WORKFLOW_STATE, document.getWorkflowState( ) );
+        mapFields.put( FIELD_ACTION_NAME, document.getActionName( ) );
+        mapFields.put( FIELD_COMPLETE_DURATION, document.getCompleteDuration( ) );
+        return mapFields;
+    }
+}
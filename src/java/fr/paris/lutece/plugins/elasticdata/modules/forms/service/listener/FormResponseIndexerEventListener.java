@@ -33,7 +33,7 @@
  */
 package fr.paris.lutece.plugins.elasticdata.modules.forms.service.listener;
 
-import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormsDataSource;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing.IncrementalIndexingBuffer;
 import fr.paris.lutece.plugins.forms.business.form.search.IndexerAction;
 import fr.paris.lutece.plugins.forms.service.event.FormResponseEvent;
 import fr.paris.lutece.portal.service.event.EventAction;
@@ -46,7 +46,7 @@ import jakarta.inject.Inject;
 public class FormResponseIndexerEventListener
 {
     @Inject
-    FormsDataSource _formsDataSource;
+    IncrementalIndexingBuffer _incrementalIndexingBuffer;
 
     /**
      * handle the event for the added formResponse
@@ -83,6 +83,6 @@ public class FormResponseIndexerEventListener
 
     private void indexFormResponse( FormResponseEvent event, int nIdTask )
     {
-    	_formsDataSource.indexDocument( event.getFormResponseId( ), nIdTask );
+    	_incrementalIndexingBuffer.add( event.getFormResponseId( ), nIdTask );
     }
 }
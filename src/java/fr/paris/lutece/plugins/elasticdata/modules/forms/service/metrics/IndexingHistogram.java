@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of values over fixed bucket bounds, safe for concurrent recording
+ */
+public class IndexingHistogram
+{
+    private final long [ ] _bounds;
+    private final LongAdder [ ] _buckets;
+    private final LongAdder _count = new LongAdder( );
+    private final LongAdder _sum = new LongAdder( );
+    private final LongAccumulator _max = new LongAccumulator( Math::max, 0L );
+
+    /**
+     * Constructor
+     * 
+     * @param bounds
+     *            the inclusive upper bounds of the buckets, in increasing order. The values above the last bound are counted in an overflow bucket.
+     */
+    public IndexingHistogram( long... bounds )
+    {
+        _bounds = bounds.clone( );
+        _buckets = new LongAdder [ bounds.length + 1];
+        for ( int nIndex = 0; nIndex < _buckets.length; nIndex++ )
+        {
+            _buckets [nIndex] = new LongAdder( );
+        }
+    }
+
+    /**
+     * Record a value
+     * 
+     * @param lValue
+     *            the value
+     */
+    public void record( long lValue )
+    {
+        int nIndex = 0;
+        while ( nIndex < _bounds.length && lValue > _bounds [nIndex] )
+        {
+            nIndex++;
+        }
+        _buckets [nIndex].increment( );
+        _count.increment( );
+        _sum.add( lValue );
+        _max.accumulate( lValue );
+    }
+
+    /**
+     * Returns the number of recorded values
+     * 
+     * @return the count
+     */
+    public long getCount( )
+    {
+        return _count.sum( );
+    }
+
+    /**
+     * Returns the sum of the recorded values
+     * 
+     * @return the sum
+     */
+    public long getSum( )
+    {
+        return _sum.sum( );
+    }
+
+    /**
+     * Returns the mean of the recorded values
+     * 
+     * @return the mean, 0 if no value has been recorded
+     */
+    public long getMean( )
+    {
+        long lCount = getCount( );
+        return ( lCount == 0 ) ? 0 : getSum( ) / lCount;
+    }
+
+    /**
+     * Returns the maximum of the recorded values
+     * 
+     * @return the maximum
+     */
+    public long getMax( )
+    {
+        return _max.get( );
+    }
+
+    /**
+     * Returns the buckets
+     * 
+     * @return the buckets, the last one counting the values above the last bound
+     */
+    public List<Bucket> getBuckets( )
+    {
+        List<Bucket> listBuckets = new ArrayList<>( _buckets.length );
+        for ( int nIndex = 0; nIndex < _buckets.length; nIndex++ )
+        {
+            Long lUpperBound = ( nIndex < _bounds.length ) ? _bounds [nIndex] : null;
+            listBuckets.add( new Bucket( lUpperBound, _buckets [nIndex].sum( ) ) );
+        }
+        return listBuckets;
+    }
+
+    /**
+     * Clear the recorded values
+     */
+    public void reset( )
+    {
+        for ( LongAdder bucket : _buckets )
+        {
+            bucket.reset( );
+        }
+        _count.reset( );
+        _sum.reset( );
+        _max.reset( );
+    }
+
+    /**
+     * Bucket of the histogram
+     */
+    public static final class Bucket
+    {
+        private final Long _lUpperBound;
+        private final long _lCount;
+
+        Bucket( Long lUpperBound, long lCount )
+        {
+            _lUpperBound = lUpperBound;
+            _lCount = lCount;
+        }
+
+        /**
+         * Returns the inclusive upper bound of the bucket
+         * 
+         * @return the upper bound, null for the overflow bucket
+         */
+        public Long getUpperBound( )
+        {
+            return _lUpperBound;
+        }
+
+        /**
+         * Returns the number of values in the bucket
+         * 
+         * @return the count
+         */
+        public long getCount( )
+        {
+            return _lCount;
+        }
+    }
+}
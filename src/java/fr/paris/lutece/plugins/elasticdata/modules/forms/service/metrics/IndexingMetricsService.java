@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.metrics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache.FormsIndexingCacheService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache.IndexingCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Registry of the metrics of the indexing pipeline: per-stage latencies and rows, documents emitted per type, batch sizes and cache hit ratios. The
+ * metrics are kept in memory since the start of the application or their last reset.
+ */
+@ApplicationScoped
+public class IndexingMetricsService
+{
+    @Inject
+    private FormsIndexingCacheService _cacheService;
+
+    private final Map<IndexingStage, StageMetrics> _mapStages = new EnumMap<>( IndexingStage.class );
+    private final LongAdder _formResponseDocuments = new LongAdder( );
+    private final LongAdder _formResponseHistoryDocuments = new LongAdder( );
+    private final IndexingHistogram _batchSizes = new IndexingHistogram( 10L, 50L, 100L, 200L, 500L, 1_000L, 2_000L );
+
+    /**
+     * Constructor
+     */
+    public IndexingMetricsService( )
+    {
+        for ( IndexingStage stage : IndexingStage.values( ) )
+        {
+            _mapStages.put( stage, new StageMetrics( stage ) );
+        }
+    }
+
+    /**
+     * Record an execution of a stage
+     * 
+     * @param stage
+     *            the stage
+     * @param lStartNanos
+     *            the start of the execution, as given by System.nanoTime( )
+     * @param lRows
+     *            the number of rows read or documents handled
+     */
+    public void recordStage( IndexingStage stage, long lStartNanos, long lRows )
+    {
+        _mapStages.get( stage ).record( System.nanoTime( ) - lStartNanos, lRows );
+    }
+
+    /**
+     * Record the documents built for a batch
+     * 
+     * @param lFormResponseDocuments
+     *            the number of formResponse documents
+     * @param lFormResponseHistoryDocuments
+     *            the number of formResponseHistory documents
+     */
+    public void recordDocuments( long lFormResponseDocuments, long lFormResponseHistoryDocuments )
+    {
+        _formResponseDocuments.add( lFormResponseDocuments );
+        _formResponseHistoryDocuments.add( lFormResponseHistoryDocuments );
+    }
+
+    /**
+     * Record the size of a batch of form responses
+     * 
+     * @param nBatchSize
+     *            the number of form responses of the batch
+     */
+    public void recordBatchSize( int nBatchSize )
+    {
+        _batchSizes.record( nBatchSize );
+    }
+
+    /**
+     * Returns the metrics of the stages, in pipeline order
+     * 
+     * @return the stage metrics
+     */
+    public List<StageMetrics> getStages( )
+    {
+        return new ArrayList<>( _mapStages.values( ) );
+    }
+
+    /**
+     * Returns the number of formResponse documents built
+     * 
+     * @return the number of documents
+     */
+    public long getFormResponseDocuments( )
+    {
+        return _formResponseDocuments.sum( );
+    }
+
+    /**
+     * Returns the number of formResponseHistory documents built
+     * 
+     * @return the number of documents
+     */
+    public long getFormResponseHistoryDocuments( )
+    {
+        return _formResponseHistoryDocuments.sum( );
+    }
+
+    /**
+     * Returns the histogram of the batch sizes
+     * 
+     * @return the batch sizes histogram
+     */
+    public IndexingHistogram getBatchSizes( )
+    {
+        return _batchSizes;
+    }
+
+    /**
+     * Returns the indexing caches, giving their hit ratios
+     * 
+     * @return the caches
+     */
+    public List<IndexingCache<Integer, ?>> getCaches( )
+    {
+        return _cacheService.getCaches( );
+    }
+
+    /**
+     * Clear the metrics. The cache statistics are not cleared.
+     */
+    public void reset( )
+    {
+        _mapStages.values( ).forEach( StageMetrics::reset );
+        _formResponseDocuments.reset( );
+        _formResponseHistoryDocuments.reset( );
+        _batchSizes.reset( );
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a stage of the indexing pipeline: latency histogram in microseconds and number of rows
+ */
+public class StageMetrics
+{
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private final IndexingStage _stage;
+    private final IndexingHistogram _latency = new IndexingHistogram( 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L );
+    private final LongAdder _rows = new LongAdder( );
+
+    /**
+     * Constructor
+     * 
+     * @param stage
+     *            the stage
+     */
+    public StageMetrics( IndexingStage stage )
+    {
+        _stage = stage;
+    }
+
+    /**
+     * Record an execution of the stage
+     * 
+     * @param lNanos
+     *            the duration in nanoseconds
+     * @param lRows
+     *            the number of rows read or documents handled
+     */
+    public void record( long lNanos, long lRows )
+    {
+        _latency.record( lNanos / NANOS_PER_MICRO );
+        _rows.add( lRows );
+    }
+
+    /**
+     * Returns the stage
+     * 
+     * @return the stage
+     */
+    public IndexingStage getStage( )
+    {
+        return _stage;
+    }
+
+    /**
+     * Returns the latency histogram, in microseconds
+     * 
+     * @return the latency histogram
+     */
+    public IndexingHistogram getLatency( )
+    {
+        return _latency;
+    }
+
+    /**
+     * Returns the number of rows read or documents handled by the stage
+     * 
+     * @return the number of rows
+     */
+    public long getRows( )
+    {
+        return _rows.sum( );
+    }
+
+    /**
+     * Clear the metrics
+     */
+    public void reset( )
+    {
+        _latency.reset( );
+        _rows.reset( );
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled indexing schema of a form: the indexed questions with their precomputed keys and serializers, and the field codes of their entries. It is
+ * built once and shared by all the documents of the form.
+ */
+public final class FormSchema
+{
+    private final int _nIdForm;
+    private final int _nVersion;
+    private final Map<Integer, QuestionSchema> _mapQuestions;
+    private final Map<Integer, String> _mapFieldCodes;
+
+    /**
+     * Constructor
+     * 
+     * @param nIdForm
+     *            the form id
+     * @param nVersion
+     *            the version of the indexed questions of the form the schema was built from
+     * @param collectionQuestions
+     *            the indexed questions
+     * @param mapFieldCodes
+     *            the field codes of the entries of the indexed questions, by field id
+     */
+    public FormSchema( int nIdForm, int nVersion, Collection<QuestionSchema> collectionQuestions, Map<Integer, String> mapFieldCodes )
+    {
+        _nIdForm = nIdForm;
+        _nVersion = nVersion;
+        Map<Integer, QuestionSchema> mapQuestions = new HashMap<>( );
+        for ( QuestionSchema question : collectionQuestions )
+        {
+            mapQuestions.put( question.getIdQuestion( ), question );
+        }
+        _mapQuestions = Collections.unmodifiableMap( mapQuestions );
+        _mapFieldCodes = Collections.unmodifiableMap( new HashMap<>( mapFieldCodes ) );
+    }
+
+    /**
+     * Returns the form id
+     * 
+     * @return the form id
+     */
+    public int getIdForm( )
+    {
+        return _nIdForm;
+    }
+
+    /**
+     * Returns the version of the indexed questions of the form the schema was built from
+     * 
+     * @return the version
+     */
+    public int getVersion( )
+    {
+        return _nVersion;
+    }
+
+    /**
+     * Returns an indexed question
+     * 
+     * @param nIdQuestion
+     *            the question id
+     * @return the question, or null if it is not indexed
+     */
+    public QuestionSchema getQuestion( int nIdQuestion )
+    {
+        return _mapQuestions.get( nIdQuestion );
+    }
+
+    /**
+     * Returns the indexed questions
+     * 
+     * @return the questions
+     */
+    public Collection<QuestionSchema> getQuestions( )
+    {
+        return _mapQuestions.values( );
+    }
+
+    /**
+     * Returns the code of a field
+     * 
+     * @param nIdField
+     *            the field id
+     * @return the field code, or null if the field has no code
+     */
+    public String getFieldCode( int nIdField )
+    {
+        return _mapFieldCodes.get( nIdField );
+    }
+}
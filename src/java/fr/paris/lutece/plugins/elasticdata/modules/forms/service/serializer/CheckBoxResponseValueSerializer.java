@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.FormSchema;
+import fr.paris.lutece.plugins.forms.service.entrytype.EntryTypeCheckBox;
+import fr.paris.lutece.plugins.genericattributes.business.Response;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Serializes the responses of a checkbox question as the list of the checked values
+ */
+@ApplicationScoped
+public class CheckBoxResponseValueSerializer implements ResponseValueSerializer
+{
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean supports( IEntryTypeService entryTypeService )
+    {
+        return entryTypeService instanceof EntryTypeCheckBox;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Object serialize( List<Response> listResponse, FormSchema schema )
+    {
+        List<String> listValues = new ArrayList<>( listResponse.size( ) );
+        for ( Response response : listResponse )
+        {
+            listValues.add( response.getResponseValue( ) );
+        }
+        return listValues;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.FormSchema;
+import fr.paris.lutece.plugins.forms.service.entrytype.EntryTypeDate;
+import fr.paris.lutece.plugins.genericattributes.business.Response;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Serializes the responses of a date question as epoch milliseconds, under a key ending with {@link ResponseValueSerializer#KEY_SUFFIX_DATE} so
+ * that the dynamic templates of the index map them as dates. A value which is not a date is kept as it is.
+ */
+@ApplicationScoped
+public class DateResponseValueSerializer implements ResponseValueSerializer
+{
+    private static final DateTimeFormatter FORMATTER_FRENCH_DATE = DateTimeFormatter.ofPattern( "dd/MM/yyyy" );
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean supports( IEntryTypeService entryTypeService )
+    {
+        return entryTypeService instanceof EntryTypeDate;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Object serialize( List<Response> listResponse, FormSchema schema )
+    {
+        if ( listResponse.size( ) == 1 )
+        {
+            return toEpochMillis( listResponse.get( 0 ).getResponseValue( ) );
+        }
+        List<Object> listValues = new ArrayList<>( listResponse.size( ) );
+        for ( Response response : listResponse )
+        {
+            listValues.add( toEpochMillis( response.getResponseValue( ) ) );
+        }
+        return listValues;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getKeySuffix( )
+    {
+        return KEY_SUFFIX_DATE;
+    }
+
+    /**
+     * Convert a date response to epoch milliseconds. The date responses are stored either as epoch milliseconds or as ISO local dates, older ones as
+     * dd/MM/yyyy.
+     * 
+     * @param strValue
+     *            the response value
+     * @return the epoch milliseconds, or the value itself if it is not a date
+     */
+    private static Object toEpochMillis( String strValue )
+    {
+        if ( StringUtils.isBlank( strValue ) )
+        {
+            return null;
+        }
+        if ( StringUtils.isNumeric( strValue ) )
+        {
+            return Long.valueOf( strValue );
+        }
+        try
+        {
+            DateTimeFormatter formatter = ( strValue.indexOf( '/' ) >= 0 ) ? FORMATTER_FRENCH_DATE : DateTimeFormatter.ISO_LOCAL_DATE;
+            return LocalDate.parse( strValue.trim( ), formatter ).atStartOfDay( ZoneId.systemDefault( ) ).toInstant( ).toEpochMilli( );
+        }
+        catch( DateTimeParseException e )
+        {
+            return strValue;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.FormSchema;
+import fr.paris.lutece.plugins.forms.service.entrytype.EntryTypeGeolocation;
+import fr.paris.lutece.plugins.genericattributes.business.Response;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Serializes the responses of a geolocation question as the values by field code, or by field id for the fields without code. When the coordinates
+ * are known, they are added as a geoPoint object mapped as a geo point by the dynamic templates of the index.
+ */
+@ApplicationScoped
+public class GeolocationResponseValueSerializer implements ResponseValueSerializer
+{
+    private static final String FIELD_CODE_X = "X";
+    private static final String FIELD_CODE_Y = "Y";
+    private static final String KEY_GEO_POINT = "geoPoint";
+    private static final String KEY_LAT = "lat";
+    private static final String KEY_LON = "lon";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean supports( IEntryTypeService entryTypeService )
+    {
+        return entryTypeService instanceof EntryTypeGeolocation;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Object serialize( List<Response> listResponse, FormSchema schema )
+    {
+        Map<String, Object> mapValues = new HashMap<>( );
+        for ( Response response : listResponse )
+        {
+            int nIdField = response.getField( ).getIdField( );
+            String strFieldCode = schema.getFieldCode( nIdField );
+            mapValues.put( ( strFieldCode != null ) ? strFieldCode : String.valueOf( nIdField ), response.getResponseValue( ) );
+        }
+        Object lon = NumberResponseValueSerializer.toDouble( (String) mapValues.get( FIELD_CODE_X ) );
+        Object lat = NumberResponseValueSerializer.toDouble( (String) mapValues.get( FIELD_CODE_Y ) );
+        if ( lon instanceof Double && lat instanceof Double )
+        {
+            Map<String, Object> mapGeoPoint = new HashMap<>( );
+            mapGeoPoint.put( KEY_LAT, lat );
+            mapGeoPoint.put( KEY_LON, lon );
+            mapValues.put( KEY_GEO_POINT, mapGeoPoint );
+        }
+        return mapValues;
+    }
+}
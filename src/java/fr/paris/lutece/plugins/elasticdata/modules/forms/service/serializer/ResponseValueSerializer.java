@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer;
+
+import java.util.List;
+
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.schema.FormSchema;
+import fr.paris.lutece.plugins.genericattributes.business.Response;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
+
+/**
+ * Turns the responses to a question into the value of its key in the userResponses of the documents. Implementations are CDI beans: a plugin can add
+ * a serializer for its own entry types, or replace a built-in one with a higher priority.
+ * <p>
+ * The dynamic templates of the index map the dates by the name of their key: the keys ending with {@link #KEY_SUFFIX_DATE} are dates in epoch
+ * milliseconds. The decimal numbers are doubles and the geoPoint objects are geo points, the other values are mapped from their JSON type.
+ */
+public interface ResponseValueSerializer
+{
+    /** Priority of the serializers of the module */
+    int PRIORITY_DEFAULT = 0;
+    /** Priority of the serializer used when no other one supports an entry type */
+    int PRIORITY_FALLBACK = Integer.MIN_VALUE;
+    /** Suffix of the keys mapped as dates in epoch milliseconds */
+    String KEY_SUFFIX_DATE = "_date";
+
+    /**
+     * Returns true if the serializer handles the responses of an entry type
+     * 
+     * @param entryTypeService
+     *            the entry type service, or null if it could not be resolved
+     * @return true if the entry type is supported
+     */
+    boolean supports( IEntryTypeService entryTypeService );
+
+    /**
+     * Serialize the responses to a question
+     * 
+     * @param listResponse
+     *            the responses, never empty
+     * @param schema
+     *            the compiled schema of the form, giving the field codes
+     * @return the value to index, or null to leave the question out of the document
+     */
+    Object serialize( List<Response> listResponse, FormSchema schema );
+
+    /**
+     * Returns the suffix appended to the key of the questions, which selects the mapping of their values in the index
+     * 
+     * @return the suffix, empty by default
+     */
+    default String getKeySuffix( )
+    {
+        return "";
+    }
+
+    /**
+     * Returns the priority of the serializer. When several serializers support an entry type, the one with the highest priority is used.
+     * 
+     * @return the priority
+     */
+    default int getPriority( )
+    {
+        return PRIORITY_DEFAULT;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.serializer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import fr.paris.lutece.plugins.genericattributes.business.Entry;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.EntryTypeServiceManager;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+/**
+ * Resolves the response value serializer of the entry types among the serializer beans
+ */
+@ApplicationScoped
+public class ResponseValueSerializerService
+{
+    @Inject
+    private Instance<ResponseValueSerializer> _instanceSerializers;
+
+    private List<ResponseValueSerializer> _listSerializers;
+
+    /**
+     * Sort the serializers by decreasing priority
+     */
+    @PostConstruct
+    void initSerializers( )
+    {
+        List<ResponseValueSerializer> listSerializers = new ArrayList<>( );
+        _instanceSerializers.forEach( listSerializers::add );
+        listSerializers.sort( Comparator.comparingInt( ResponseValueSerializer::getPriority ).reversed( ) );
+        _listSerializers = listSerializers;
+    }
+
+    /**
+     * Returns the serializer of the responses to an entry
+     * 
+     * @param entry
+     *            the entry, or null if it does not exist
+     * @return the serializer with the highest priority supporting the entry type
+     */
+    public ResponseValueSerializer getSerializer( Entry entry )
+    {
+        IEntryTypeService entryTypeService = ( entry != null ) ? EntryTypeServiceManager.getEntryTypeService( entry ) : null;
+        for ( ResponseValueSerializer serializer : _listSerializers )
+        {
+            if ( serializer.supports( entryTypeService ) )
+            {
+                return serializer;
+            }
+        }
+        return new DefaultResponseValueSerializer( );
+    }
+}
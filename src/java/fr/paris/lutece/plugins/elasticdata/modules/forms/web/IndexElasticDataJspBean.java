@@ -33,18 +33,32 @@
  */
 package fr.paris.lutece.plugins.elasticdata.modules.forms.web;
 
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.servlet.http.HttpServletRequest;
-import fr.paris.lutece.plugins.elasticdata.business.DataSource;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormIndexation;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormIndexationHome;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.FormResponseIdFilter;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.business.HistoryResponsesMode;
 import fr.paris.lutece.plugins.elasticdata.modules.forms.business.OptionalQuestionIndexation;
 import fr.paris.lutece.plugins.elasticdata.modules.forms.business.OptionalQuestionIndexationHome;
-import fr.paris.lutece.plugins.elasticdata.service.DataSourceService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.cache.FormsIndexingCacheService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing.BatchSizeService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.indexing.FormReindexService;
+import fr.paris.lutece.plugins.elasticdata.modules.forms.service.metrics.IndexingMetricsService;
 import fr.paris.lutece.plugins.forms.business.Form;
 import fr.paris.lutece.plugins.forms.business.FormHome;
 import fr.paris.lutece.plugins.forms.business.Question;
@@ -59,6 +73,7 @@ import fr.paris.lutece.portal.util.mvc.admin.annotations.Controller;
 import fr.paris.lutece.portal.util.mvc.commons.annotations.Action;
 import fr.paris.lutece.portal.util.mvc.commons.annotations.View;
 import fr.paris.lutece.portal.web.cdi.mvc.Models;
+import fr.paris.lutece.util.ReferenceList;
 
 /**
  * ManageElasticData JSP Bean abstract class for JSP Bean
@@ -76,22 +91,58 @@ public class IndexElasticDataJspBean extends MVCAdminJspBean
 
     private static final String ACTION_INDEX = "index";
     private static final String ACTION_MODIFY_FORM_INDEXATION = "modifyFormIndexation";
+    private static final String ACTION_RESET_CACHES = "resetCaches";
+    private static final String ACTION_REINDEX_FORM = "reindexForm";
+    private static final String ACTION_RESET_METRICS = "resetMetrics";
+    private static final String ACTION_PAUSE_JOB = "pauseJob";
+    private static final String ACTION_RESUME_JOB = "resumeJob";
+    private static final String ACTION_CANCEL_JOB = "cancelJob";
+    private static final String ACTION_RESUME_FULL_REINDEX = "resumeFullReindex";
+    private static final String ACTION_RETRY_FAILED_BATCHES = "retryFailedBatches";
 
     private static final String MARK_FORM_LIST = "form_list";
     private static final String MARK_FORM = "form";
     private static final String MARK_FORM_STEP_QUESTION_LIST = "form_step_question_list";
     private static final String MARK_OPTIONAL_QUESTION_INDEXATION_LIST = "optional_question_indexation_list";
+    private static final String MARK_BATCH_SIZE = "batch_size";
+    private static final String MARK_FORM_INDEXATION = "form_indexation";
+    private static final String MARK_HISTORY_RESPONSES_MODE_LIST = "history_responses_mode_list";
+    private static final String MARK_REINDEX_JOB_LIST = "reindex_job_list";
+    private static final String MARK_INDEXING_METRICS = "indexing_metrics";
+    private static final String MARK_REINDEX_CHECKPOINT = "reindex_checkpoint";
+    private static final String MARK_FAILED_BATCH_LIST = "failed_batch_list";
 
     private static final String PROPERTY_PAGE_TITLE = "module.description";
     protected static final String MESSAGE_SUCCESS_SAVE = "module.elasticdata.forms.modify.save.success";
+    private static final String MESSAGE_CACHES_RESET = "module.elasticdata.forms.manage_forms.caches.reset";
+    private static final String MESSAGE_METRICS_RESET = "module.elasticdata.forms.manage_forms.metrics.reset";
+    private static final String MESSAGE_FULL_REINDEX_SUBMITTED = "module.elasticdata.forms.manage_forms.reindex.fullReindexSubmitted";
+    private static final String MESSAGE_ERROR_FULL_REINDEX_RUNNING = "module.elasticdata.forms.manage_forms.reindex.error.fullReindexRunning";
+    private static final String MESSAGE_RETRY_FAILED_BATCHES_SUBMITTED = "module.elasticdata.forms.manage_forms.reindex.retryFailedBatchesSubmitted";
+    private static final String MESSAGE_QUESTION_CHANGES_SUBMITTED = "module.elasticdata.forms.modify.questionChanges.submitted";
+    private static final String MESSAGE_REINDEX_SUBMITTED = "module.elasticdata.forms.modify_form.reindex.submitted";
+    private static final String MESSAGE_ERROR_DATE = "module.elasticdata.forms.modify_form.reindex.error.date";
+    private static final String MESSAGE_HISTORY_RESPONSES_MODE_PREFIX = "module.elasticdata.forms.modify_form.historyResponsesMode.";
 
-    private static final String PARAMETER_DATA_SOURCE = "data_source";
     private static final String PARAMETER_FORM_ID = "idForm";
+    private static final String PARAMETER_HISTORY_RESPONSES_MODE = "history_responses_mode";
+    private static final String PARAMETER_HISTORY_PREFIX = "history_";
+    private static final String PARAMETER_DATE_FROM = "date_from";
+    private static final String PARAMETER_DATE_TO = "date_to";
+    private static final String PARAMETER_JOB_ID = "id_job";
 
     private static final long serialVersionUID = 1L;
     
     @Inject
     private Models _model;
+    @Inject
+    private FormsIndexingCacheService _cacheService;
+    @Inject
+    private BatchSizeService _batchSizeService;
+    @Inject
+    private FormReindexService _reindexService;
+    @Inject
+    private IndexingMetricsService _metricsService;
 
     /**
      * View the home of the feature
@@ -105,6 +156,11 @@ public class IndexElasticDataJspBean extends MVCAdminJspBean
     {
         List<Form> listForms = FormHome.getFormList( );
         _model.put( MARK_FORM_LIST, listForms );
+        _model.put( MARK_BATCH_SIZE, _batchSizeService );
+        _model.put( MARK_REINDEX_JOB_LIST, _reindexService.getJobs( ) );
+        _model.put( MARK_INDEXING_METRICS, _metricsService );
+        _model.put( MARK_REINDEX_CHECKPOINT, _reindexService.getFullReindexCheckpoint( ) );
+        _model.put( MARK_FAILED_BATCH_LIST, _reindexService.getFailedBatches( ) );
         return getPage( PROPERTY_PAGE_TITLE, TEMPLATE_MANAGE_FORMS_INDEXATION, _model );
     }
 
@@ -138,13 +194,15 @@ public class IndexElasticDataJspBean extends MVCAdminJspBean
         }
 
         _model.put( MARK_OPTIONAL_QUESTION_INDEXATION_LIST, OptionalQuestionIndexationHome.getOptionalQuestionIndexationListByFormId( nIdFrom ) );
+        _model.put( MARK_FORM_INDEXATION, FormIndexationHome.findByFormId( nIdFrom ) );
+        _model.put( MARK_HISTORY_RESPONSES_MODE_LIST, getHistoryResponsesModeList( ) );
         _model.put( MARK_FORM, form );
         _model.put( MARK_FORM_STEP_QUESTION_LIST, stepWithQuestionList );
         return getPage( PROPERTY_PAGE_TITLE, TEMPLATE_MODIFY_INDEXATION, _model );
     }
 
     /**
-     * Process the full indexing of a given data source
+     * Submit the full reindexing of the form responses as a background job
      * 
      * @param request
      *            The HTTP request
@@ -153,11 +211,104 @@ public class IndexElasticDataJspBean extends MVCAdminJspBean
     @Action( ACTION_INDEX )
     public String doIndex( HttpServletRequest request )
     {
-        StringBuilder sbLogs = new StringBuilder( );
-        String strDataSourceId = request.getParameter( PARAMETER_DATA_SOURCE );
-        DataSource source = DataSourceService.getDataSource( strDataSourceId );
-        DataSourceService.processFullIndexing( source, false );
-        addInfo( sbLogs.toString( ) );
+        return submitFullReindex( request, false );
+    }
+
+    /**
+     * Resume the interrupted full reindexing from its checkpoint, as a background job
+     * 
+     * @param request
+     *            The HTTP request
+     * @return The redirected page
+     */
+    @Action( ACTION_RESUME_FULL_REINDEX )
+    public String doResumeFullReindex( HttpServletRequest request )
+    {
+        return submitFullReindex( request, true );
+    }
+
+    /**
+     * Submit the full reindexing
+     * 
+     * @param request
+     *            The HTTP request
+     * @param bResume
+     *            true to resume the interrupted full reindexing
+     * @return The redirected page
+     */
+    private String submitFullReindex( HttpServletRequest request, boolean bResume )
+    {
+        if ( _reindexService.submitFullReindex( bResume ) == null )
+        {
+            addError( MESSAGE_ERROR_FULL_REINDEX_RUNNING, getLocale( ) );
+        }
+        else
+        {
+            addInfo( I18nService.getLocalizedString( MESSAGE_FULL_REINDEX_SUBMITTED, getLocale( ) ) );
+        }
+        return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
+    }
+
+    /**
+     * Submit the reindexing of the batches that have failed during the last full reindexing
+     * 
+     * @param request
+     *            The HTTP request
+     * @return The redirected page
+     */
+    @Action( ACTION_RETRY_FAILED_BATCHES )
+    public String doRetryFailedBatches( HttpServletRequest request )
+    {
+        if ( _reindexService.submitRetryFailedBatches( ) == null )
+        {
+            addError( MESSAGE_ERROR_FULL_REINDEX_RUNNING, getLocale( ) );
+        }
+        else
+        {
+            addInfo( I18nService.getLocalizedString( MESSAGE_RETRY_FAILED_BATCHES_SUBMITTED, getLocale( ) ) );
+        }
+        return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
+    }
+
+    /**
+     * Pause a reindexing job
+     * 
+     * @param request
+     *            The HTTP request
+     * @return The redirected page
+     */
+    @Action( ACTION_PAUSE_JOB )
+    public String doPauseJob( HttpServletRequest request )
+    {
+        _reindexService.pause( NumberUtils.toInt( request.getParameter( PARAMETER_JOB_ID ) ) );
+        return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
+    }
+
+    /**
+     * Resume a paused reindexing job
+     * 
+     * @param request
+     *            The HTTP request
+     * @return The redirected page
+     */
+    @Action( ACTION_RESUME_JOB )
+    public String doResumeJob( HttpServletRequest request )
+    {
+        _reindexService.resume( NumberUtils.toInt( request.getParameter( PARAMETER_JOB_ID ) ) );
+        return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
+    }
+
+    /**
+     * Cancel a reindexing job
+     * 
+     * @param request
+     *            The HTTP request
+     * @return The redirected page
+     */
+    @Action( ACTION_CANCEL_JOB )
+    public String doCancelJob( HttpServletRequest request )
+    {
+        _reindexService.cancel( NumberUtils.toInt( request.getParameter( PARAMETER_JOB_ID ) ) );
         return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
     }
 
@@ -174,30 +325,146 @@ public class IndexElasticDataJspBean extends MVCAdminJspBean
         String strIdForm = request.getParameter( PARAMETER_FORM_ID );
         int nIdFrom = Integer.valueOf( strIdForm );
         List<Question> questionList = QuestionHome.getListQuestionByIdForm( nIdFrom );
+        Set<Integer> setIdQuestion = new HashSet<>( );
+        Set<Integer> setIdHistoryQuestion = new HashSet<>( );
         for ( Question question : questionList )
         {
-            int nIdQuestion = question.getId( );
-            String checkBoxValue = request.getParameter( String.valueOf( question.getId( ) ) );
-            OptionalQuestionIndexation optionalQuestionIndexation = OptionalQuestionIndexationHome.findByQuestionId( nIdQuestion );
-            if ( checkBoxValue != null )
+            if ( request.getParameter( String.valueOf( question.getId( ) ) ) != null )
             {
-                if ( optionalQuestionIndexation == null )
+                setIdQuestion.add( question.getId( ) );
+                if ( request.getParameter( PARAMETER_HISTORY_PREFIX + question.getId( ) ) != null )
                 {
-                    OptionalQuestionIndexation newOptionalQuestionIndexation = new OptionalQuestionIndexation( );
-                    newOptionalQuestionIndexation.setIdQuestion( nIdQuestion );
-                    newOptionalQuestionIndexation.setIdForm( question.getStep( ).getIdForm( ) );
-                    OptionalQuestionIndexationHome.create( newOptionalQuestionIndexation );
-                }
-            }
-            else
-            {
-                if ( optionalQuestionIndexation != null )
-                {
-                    OptionalQuestionIndexationHome.remove( optionalQuestionIndexation.getId( ) );
+                    setIdHistoryQuestion.add( question.getId( ) );
                 }
             }
         }
+        Set<Integer> setCurrentIdQuestion = OptionalQuestionIndexationHome.getOptionalQuestionIndexationListByFormId( nIdFrom ).stream( )
+                .map( OptionalQuestionIndexation::getIdQuestion ).collect( Collectors.toSet( ) );
+        Set<Integer> setAddedQuestion = setIdQuestion.stream( ).filter( nIdQuestion -> !setCurrentIdQuestion.contains( nIdQuestion ) )
+                .collect( Collectors.toSet( ) );
+        Set<Integer> setRemovedQuestion = setCurrentIdQuestion.stream( ).filter( nIdQuestion -> !setIdQuestion.contains( nIdQuestion ) )
+                .collect( Collectors.toSet( ) );
+        OptionalQuestionIndexationHome.replaceQuestionsForForm( nIdFrom, setIdQuestion, setIdHistoryQuestion );
+
+        FormIndexation formIndexation = FormIndexationHome.findByFormId( nIdFrom );
+        formIndexation.setHistoryResponsesMode( HistoryResponsesMode.fromName( request.getParameter( PARAMETER_HISTORY_RESPONSES_MODE ) ) );
+        FormIndexationHome.save( formIndexation );
+        _cacheService.invalidateFieldCodes( nIdFrom );
+        _cacheService.invalidateForm( nIdFrom );
         addInfo( I18nService.getLocalizedString( MESSAGE_SUCCESS_SAVE, getLocale( ) ) );
+        if ( !setAddedQuestion.isEmpty( ) || !setRemovedQuestion.isEmpty( ) )
+        {
+            // update the documents already indexed
+            _reindexService.submitQuestionChanges( FormHome.findByPrimaryKey( nIdFrom ), setAddedQuestion, setRemovedQuestion );
+            addInfo( I18nService.getLocalizedString( MESSAGE_QUESTION_CHANGES_SUBMITTED, getLocale( ) ) );
+        }
         return redirect( request, VIEW_MODIFY_FORM_INDEXATION, PARAMETER_FORM_ID, nIdFrom );
     }
+
+    /**
+     * Reindex the form responses of a form in the background, optionally restricted to a creation date range
+     * 
+     * @param request
+     *            The HTTP request
+     * @return The redirected page
+     */
+    @Action( ACTION_REINDEX_FORM )
+    public String doReindexForm( HttpServletRequest request )
+    {
+        int nIdForm = Integer.parseInt( request.getParameter( PARAMETER_FORM_ID ) );
+        Form form = FormHome.findByPrimaryKey( nIdForm );
+        if ( form == null )
+        {
+            return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
+        }
+
+        FormResponseIdFilter filter = new FormResponseIdFilter( );
+        filter.setIdForm( nIdForm );
+        try
+        {
+            LocalDate dateFrom = getDateParameter( request, PARAMETER_DATE_FROM );
+            LocalDate dateTo = getDateParameter( request, PARAMETER_DATE_TO );
+            if ( dateFrom != null )
+            {
+                filter.setCreationFrom( Timestamp.valueOf( dateFrom.atStartOfDay( ) ) );
+            }
+            if ( dateTo != null )
+            {
+                // the end date is inclusive
+                filter.setCreationTo( Timestamp.valueOf( dateTo.plusDays( 1 ).atStartOfDay( ) ) );
+            }
+        }
+        catch( DateTimeParseException e )
+        {
+            addError( MESSAGE_ERROR_DATE, getLocale( ) );
+            return redirect( request, VIEW_MODIFY_FORM_INDEXATION, PARAMETER_FORM_ID, nIdForm );
+        }
+
+        // the reindexed documents carry the current title of the form and names of its workflow
+        _cacheService.invalidateForm( nIdForm );
+        _cacheService.invalidateWorkflow( form.getIdWorkflow( ) );
+        _reindexService.submit( form.getTitle( ), filter );
+        addInfo( I18nService.getLocalizedString( MESSAGE_REINDEX_SUBMITTED, getLocale( ) ) );
+        return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
+    }
+
+    /**
+     * Returns a date parameter of the request
+     * 
+     * @param request
+     *            The HTTP request
+     * @param strParameter
+     *            the parameter name
+     * @return the date, or null if the parameter is empty
+     */
+    private static LocalDate getDateParameter( HttpServletRequest request, String strParameter )
+    {
+        String strDate = request.getParameter( strParameter );
+        return StringUtils.isBlank( strDate ) ? null : LocalDate.parse( strDate.trim( ) );
+    }
+
+    /**
+     * Reset the forms and workflows caches used by the indexing, for instance after a workflow definition has been modified
+     * 
+     * @param request
+     *            The HTTP request
+     * @return The redirected page
+     */
+    @Action( ACTION_RESET_CACHES )
+    public String doResetCaches( HttpServletRequest request )
+    {
+        _cacheService.invalidateAll( );
+        addInfo( I18nService.getLocalizedString( MESSAGE_CACHES_RESET, getLocale( ) ) );
+        return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
+    }
+
+    /**
+     * Reset the indexing metrics, for instance before a reindex to be measured
+     * 
+     * @param request
+     *            The HTTP request
+     * @return The redirected page
+     */
+    @Action( ACTION_RESET_METRICS )
+    public String doResetMetrics( HttpServletRequest request )
+    {
+        _metricsService.reset( );
+        addInfo( I18nService.getLocalizedString( MESSAGE_METRICS_RESET, getLocale( ) ) );
+        return redirectView( request, VIEW_MANAGE_FORMS_INDEXATION );
+    }
+
+    /**
+     * Returns the list of the user responses modes of the history documents
+     * 
+     * @return the list of the modes
+     */
+    private ReferenceList getHistoryResponsesModeList( )
+    {
+        ReferenceList listModes = new ReferenceList( );
+        for ( HistoryResponsesMode mode : HistoryResponsesMode.values( ) )
+        {
+            listModes.addItem( mode.name( ), I18nService.getLocalizedString( MESSAGE_HISTORY_RESPONSES_MODE_PREFIX + mode.name( ), getLocale( ) ) );
+        }
+        return listModes;
+    }
 }
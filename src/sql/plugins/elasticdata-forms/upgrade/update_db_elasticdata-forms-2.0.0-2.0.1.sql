@@ -0,0 +1,93 @@
+-- liquibase formatted sql
+-- changeset elasticdata-forms:update_db_elasticdata-forms-2.0.0-2.0.1.sql
+-- preconditions onFail:MARK_RAN onError:WARN
+
+--
+-- Structure for table elasticdata_forms_response_indexation
+--
+
+CREATE TABLE elasticdata_forms_response_indexation (
+id_form_response int default 0 NOT NULL,
+id_last_history int default 0 NOT NULL,
+response_update_date timestamp NULL,
+PRIMARY KEY (id_form_response)
+);
+
+ALTER TABLE elasticdata_forms_optionalquestionresponse ADD COLUMN indexed_in_history smallint default 0 NOT NULL;
+CREATE INDEX index_elasticdata_forms_optionalquestion_form ON elasticdata_forms_optionalquestionresponse ( id_form, id_question );
+
+--
+-- Structure for table elasticdata_forms_form_indexation
+--
+
+CREATE TABLE elasticdata_forms_form_indexation (
+id_form int default 0 NOT NULL,
+history_responses_mode varchar(16) default 'FULL' NOT NULL,
+PRIMARY KEY (id_form)
+);
+
+--
+-- Structure for table elasticdata_forms_optionalquestion_version
+--
+
+CREATE TABLE elasticdata_forms_optionalquestion_version (
+id_form int default 0 NOT NULL,
+version int default 0 NOT NULL,
+PRIMARY KEY (id_form)
+);
+
+--
+-- Structure for table elasticdata_forms_indexing_lock
+--
+
+CREATE TABLE elasticdata_forms_indexing_lock (
+lock_name varchar(50) NOT NULL,
+owner varchar(255) NULL,
+heartbeat_date timestamp NULL,
+PRIMARY KEY (lock_name)
+);
+
+INSERT INTO elasticdata_forms_indexing_lock ( lock_name ) VALUES ( 'full_reindex' );
+
+--
+-- Structure for table elasticdata_forms_reindex_checkpoint
+--
+
+CREATE TABLE elasticdata_forms_reindex_checkpoint (
+checkpoint_name varchar(50) NOT NULL,
+last_id_response int default 0 NOT NULL,
+batch_sequence int default 0 NOT NULL,
+processed int default 0 NOT NULL,
+index_name varchar(255) NULL,
+start_date timestamp NULL,
+update_date timestamp NULL,
+PRIMARY KEY (checkpoint_name)
+);
+
+--
+-- Structure for table elasticdata_forms_reindex_failed_batch
+--
+
+CREATE TABLE elasticdata_forms_reindex_failed_batch (
+id_failed_batch int AUTO_INCREMENT,
+checkpoint_name varchar(50) NOT NULL,
+batch_sequence int default 0 NOT NULL,
+first_id_response int default 0 NOT NULL,
+last_id_response int default 0 NOT NULL,
+error_message varchar(255) NULL,
+failure_date timestamp NULL,
+PRIMARY KEY (id_failed_batch)
+);
+
+CREATE INDEX index_elasticdata_forms_failed_batch_checkpoint ON elasticdata_forms_reindex_failed_batch ( checkpoint_name );
+
+--
+-- Structure for table elasticdata_forms_reindex_task
+--
+
+CREATE TABLE elasticdata_forms_reindex_task (
+id_reindex_task int AUTO_INCREMENT,
+id_resource int default 0 NOT NULL,
+task_type int default 0 NOT NULL,
+PRIMARY KEY (id_reindex_task)
+);
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Elasticsearch server stub: it answers the requests with the responses registered for their method and path, and records them
+ */
+class ElasticServerStub implements AutoCloseable
+{
+    private static final String DEFAULT_RESPONSE = "{\"acknowledged\":true}";
+
+    private final HttpServer _server;
+    private final Map<String, Integer> _mapStatus = new HashMap<>( );
+    private final Map<String, String> _mapResponses = new HashMap<>( );
+    private final List<String> _listRequests = new ArrayList<>( );
+    private final Map<String, String> _mapBodies = new HashMap<>( );
+
+    /**
+     * Start the stub on a free port
+     * 
+     * @throws IOException
+     *             if the server cannot be started
+     */
+    ElasticServerStub( ) throws IOException
+    {
+        _server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+        _server.createContext( "/", this::handle );
+        _server.start( );
+    }
+
+    /**
+     * Returns a client of the stub
+     * 
+     * @return the client
+     */
+    FormsElasticClient getClient( )
+    {
+        return new FormsElasticClient( "http://localhost:" + _server.getAddress( ).getPort( ), null, null );
+    }
+
+    /**
+     * Register the response of a request
+     * 
+     * @param strRequest
+     *            the method and the path with its query, separated by a space
+     * @param nStatus
+     *            the HTTP status
+     * @param strResponse
+     *            the JSON response
+     */
+    void respond( String strRequest, int nStatus, String strResponse )
+    {
+        _mapStatus.put( strRequest, nStatus );
+        _mapResponses.put( strRequest, strResponse );
+    }
+
+    /**
+     * Returns the requests received, in order
+     * 
+     * @return the method and the path with its query of each request
+     */
+    synchronized List<String> getRequests( )
+    {
+        return new ArrayList<>( _listRequests );
+    }
+
+    /**
+     * Returns the body of the last request of a method and path
+     * 
+     * @param strRequest
+     *            the method and the path with its query, separated by a space
+     * @return the body, or null if no such request was received
+     */
+    synchronized String getBody( String strRequest )
+    {
+        return _mapBodies.get( strRequest );
+    }
+
+    /**
+     * Answer a request
+     * 
+     * @param exchange
+     *            the exchange
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void handle( HttpExchange exchange ) throws IOException
+    {
+        String strQuery = exchange.getRequestURI( ).getRawQuery( );
+        String strRequest = exchange.getRequestMethod( ) + " " + exchange.getRequestURI( ).getRawPath( ) + ( ( strQuery == null ) ? "" : "?" + strQuery );
+        try ( InputStream in = exchange.getRequestBody( ) )
+        {
+            String strBody = new String( in.readAllBytes( ), StandardCharsets.UTF_8 );
+            synchronized( this )
+            {
+                _listRequests.add( strRequest );
+                _mapBodies.put( strRequest, strBody );
+            }
+        }
+        byte [ ] response = _mapResponses.getOrDefault( strRequest, DEFAULT_RESPONSE ).getBytes( StandardCharsets.UTF_8 );
+        exchange.getResponseHeaders( ).add( "Content-Type", "application/json" );
+        exchange.sendResponseHeaders( _mapStatus.getOrDefault( strRequest, 200 ), response.length );
+        try ( OutputStream out = exchange.getResponseBody( ) )
+        {
+            out.write( response );
+        }
+    }
+
+    @Override
+    public void close( )
+    {
+        _server.stop( 0 );
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.paris.lutece.portal.service.util.AppException;
+
+/**
+ * FormsElasticClient tests
+ */
+public class FormsElasticClientTest
+{
+    private static final String REQUEST_BULK = "POST /_bulk";
+
+    private ElasticServerStub _server;
+    private FormsElasticClient _client;
+
+    @BeforeEach
+    public void setUp( ) throws IOException
+    {
+        _server = new ElasticServerStub( );
+        _client = _server.getClient( );
+    }
+
+    @AfterEach
+    public void tearDown( )
+    {
+        _server.close( );
+    }
+
+    private static BulkRequestBuilder buildBulk( )
+    {
+        return new BulkRequestBuilder( ).update( "forms", "1", Collections.singletonMap( "workflowState", "closed" ) )
+                .update( "forms", "2", Collections.singletonMap( "workflowState", "closed" ) ).delete( "forms", "3" );
+    }
+
+    @Test
+    public void testBulk( )
+    {
+        _server.respond( REQUEST_BULK, 200, "{\"errors\":false,\"items\":[{\"update\":{\"_id\":\"1\",\"status\":200}},"
+                + "{\"update\":{\"_id\":\"2\",\"status\":200}},{\"delete\":{\"_id\":\"3\",\"status\":404,\"result\":\"not_found\"}}]}" );
+
+        assertTrue( _client.bulk( buildBulk( ) ).isEmpty( ) );
+        String strBody = _server.getBody( REQUEST_BULK );
+        assertEquals( 5, strBody.split( "\n" ).length );
+        assertTrue( strBody.endsWith( "\n" ) );
+        assertTrue( strBody.contains( "{\"delete\":{\"_index\":\"forms\",\"_id\":\"3\"}}" ) );
+    }
+
+    @Test
+    public void testBulkDocumentMissing( )
+    {
+        _server.respond( REQUEST_BULK, 200, "{\"errors\":true,\"items\":[{\"update\":{\"_id\":\"1\",\"status\":200}},"
+                + "{\"update\":{\"_id\":\"2\",\"status\":404,\"error\":{\"type\":\"document_missing_exception\",\"reason\":\"[2]: document missing\"}}},"
+                + "{\"delete\":{\"_id\":\"3\",\"status\":200}}]}" );
+
+        List<String> listMissingIds = _client.bulk( buildBulk( ) );
+
+        assertEquals( Arrays.asList( "2" ), listMissingIds );
+    }
+
+    @Test
+    public void testBulkError( )
+    {
+        _server.respond( REQUEST_BULK, 200, "{\"errors\":true,\"items\":[{\"update\":{\"_id\":\"1\",\"status\":429,"
+                + "\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected execution\"}}},"
+                + "{\"update\":{\"_id\":\"2\",\"status\":404,\"error\":{\"type\":\"document_missing_exception\",\"reason\":\"[2]: document missing\"}}},"
+                + "{\"delete\":{\"_id\":\"3\",\"status\":200}}]}" );
+
+        AppException exception = assertThrows( AppException.class, ( ) -> _client.bulk( buildBulk( ) ) );
+
+        assertTrue( exception.getMessage( ).contains( "1 : rejected execution" ) );
+    }
+
+    @Test
+    public void testBulkHttpError( )
+    {
+        _server.respond( REQUEST_BULK, 413, "{\"error\":\"request entity too large\"}" );
+
+        assertThrows( AppException.class, ( ) -> _client.bulk( buildBulk( ) ) );
+    }
+
+    @Test
+    public void testBulkEmpty( )
+    {
+        assertTrue( _client.bulk( new BulkRequestBuilder( ) ).isEmpty( ) );
+        assertTrue( _server.getRequests( ).isEmpty( ) );
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2002-2020, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.elasticdata.modules.forms.service.elastic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * VersionedIndexManager tests
+ */
+public class VersionedIndexManagerTest
+{
+    private static final String ALIAS = "forms";
+    private static final String MAPPINGS = "{\"settings\":{\"index\":{\"refresh_interval\":\"5s\"}},\"mappings\":{\"properties\":{\"timestamp\":{\"type\":\"date\"}}}}";
+    private static final String REQUEST_GET_ALIAS = "GET /_alias/forms";
+    private static final String REQUEST_GET_INDEX = "GET /_cat/indices/forms?h=index&format=json";
+    private static final String REQUEST_GET_VERSIONS = "GET /_cat/indices/forms_v*?h=index&format=json";
+    private static final String REQUEST_UPDATE_ALIASES = "POST /_aliases";
+    private static final String ALIAS_NOT_FOUND = "{\"error\":\"alias [forms] missing\",\"status\":404}";
+
+    private final ObjectMapper _mapper = new ObjectMapper( );
+    private ElasticServerStub _server;
+    private VersionedIndexManager _indexManager;
+
+    @BeforeEach
+    public void setUp( ) throws IOException
+    {
+        _server = new ElasticServerStub( );
+        _indexManager = new VersionedIndexManager( _server.getClient( ) );
+    }
+
+    @AfterEach
+    public void tearDown( )
+    {
+        _server.close( );
+    }
+
+    @Test
+    public void testGetVersion( )
+    {
+        assertEquals( 12, VersionedIndexManager.getVersion( ALIAS, "forms_v12" ) );
+        assertEquals( 0, VersionedIndexManager.getVersion( ALIAS, "forms" ) );
+        assertEquals( 0, VersionedIndexManager.getVersion( ALIAS, "forms_v2_old" ) );
+    }
+
+    @Test
+    public void testCreateNextVersion( ) throws IOException
+    {
+        _server.respond( REQUEST_GET_ALIAS, 200, "{\"forms_v2\":{\"aliases\":{\"forms\":{}}}}" );
+        _server.respond( REQUEST_GET_VERSIONS, 200, "[{\"index\":\"forms_v2\"},{\"index\":\"forms_v3\"}]" );
+
+        String strIndex = _indexManager.createNextVersion( ALIAS, MAPPINGS );
+
+        assertEquals( "forms_v4", strIndex );
+        List<String> listRequests = _server.getRequests( );
+        // the version left by an unfinished build is deleted, the one of the alias is kept
+        assertTrue( listRequests.contains( "DELETE /forms_v3" ) );
+        assertFalse( listRequests.contains( "DELETE /forms_v2" ) );
+        JsonNode body = _mapper.readTree( _server.getBody( "PUT /forms_v4" ) );
+        assertEquals( "-1", body.path( "settings" ).path( "index" ).path( "refresh_interval" ).asText( ) );
+        assertEquals( 0, body.path( "settings" ).path( "index" ).path( "number_of_replicas" ).asInt( -1 ) );
+        assertEquals( "date", body.path( "mappings" ).path( "properties" ).path( "timestamp" ).path( "type" ).asText( ) );
+    }
+
+    @Test
+    public void testCreateFirstVersion( ) throws IOException
+    {
+        _server.respond( REQUEST_GET_ALIAS, 404, ALIAS_NOT_FOUND );
+        _server.respond( REQUEST_GET_VERSIONS, 200, "[]" );
+
+        assertEquals( "forms_v1", _indexManager.createNextVersion( ALIAS, null ) );
+        JsonNode body = _mapper.readTree( _server.getBody( "PUT /forms_v1" ) );
+        assertEquals( "-1", body.path( "settings" ).path( "index" ).path( "refresh_interval" ).asText( ) );
+    }
+
+    @Test
+    public void testPromote( ) throws IOException
+    {
+        _server.respond( REQUEST_GET_ALIAS, 200, "{\"forms_v2\":{\"aliases\":{\"forms\":{}}}}" );
+
+        _indexManager.promote( ALIAS, "forms_v3", MAPPINGS );
+
+        List<String> listRequests = _server.getRequests( );
+        JsonNode settings = _mapper.readTree( _server.getBody( "PUT /forms_v3/_settings" ) ).path( "index" );
+        assertEquals( "5s", settings.path( "refresh_interval" ).asText( ) );
+        assertTrue( settings.path( "number_of_replicas" ).isNull( ) );
+        assertTrue( listRequests.indexOf( "POST /forms_v3/_refresh" ) < listRequests.indexOf( REQUEST_UPDATE_ALIASES ) );
+        JsonNode actions = _mapper.readTree( _server.getBody( REQUEST_UPDATE_ALIASES ) ).path( "actions" );
+        assertEquals( 2, actions.size( ) );
+        assertEquals( "forms_v2", actions.get( 0 ).path( "remove" ).path( "index" ).asText( ) );
+        assertEquals( "forms_v3", actions.get( 1 ).path( "add" ).path( "index" ).asText( ) );
+        assertTrue( actions.get( 1 ).path( "add" ).path( "is_write_index" ).asBoolean( ) );
+        // the previous version is deleted once the alias has moved
+        assertTrue( listRequests.indexOf( REQUEST_UPDATE_ALIASES ) < listRequests.indexOf( "DELETE /forms_v2" ) );
+    }
+
+    @Test
+    public void testPromoteReplacesIndex( ) throws IOException
+    {
+        _server.respond( REQUEST_GET_ALIAS, 404, ALIAS_NOT_FOUND );
+        _server.respond( REQUEST_GET_INDEX, 200, "[{\"index\":\"forms\"}]" );
+
+        _indexManager.promote( ALIAS, "forms_v1", null );
+
+        JsonNode actions = _mapper.readTree( _server.getBody( REQUEST_UPDATE_ALIASES ) ).path( "actions" );
+        assertEquals( 2, actions.size( ) );
+        assertEquals( ALIAS, actions.get( 0 ).path( "remove_index" ).path( "index" ).asText( ) );
+        assertEquals( "forms_v1", actions.get( 1 ).path( "add" ).path( "index" ).asText( ) );
+        assertFalse( _server.getRequests( ).contains( "DELETE /forms" ) );
+    }
+
+    @Test
+    public void testRecreateAlias( )
+    {
+        _server.respond( REQUEST_GET_ALIAS, 200, "{\"forms_v3\":{\"aliases\":{\"forms\":{}}}}" );
+        _server.respond( REQUEST_GET_VERSIONS, 200, "[{\"index\":\"forms_v3\"},{\"index\":\"forms_v4\"}]" );
+
+        _indexManager.recreate( ALIAS, MAPPINGS );
+
+        List<String> listRequests = _server.getRequests( );
+        // deleting the alias name would fail: the indices it points to are deleted instead
+        assertFalse( listRequests.contains( "DELETE /forms" ) );
+        assertTrue( listRequests.contains( "DELETE /forms_v3" ) );
+        assertTrue( listRequests.contains( "DELETE /forms_v4" ) );
+        assertEquals( "PUT /forms", listRequests.get( listRequests.size( ) - 1 ) );
+        assertEquals( MAPPINGS, _server.getBody( "PUT /forms" ) );
+    }
+
+    @Test
+    public void testRecreateIndex( )
+    {
+        _server.respond( REQUEST_GET_ALIAS, 404, ALIAS_NOT_FOUND );
+        _server.respond( REQUEST_GET_VERSIONS, 200, "[]" );
+
+        _indexManager.recreate( ALIAS, MAPPINGS );
+
+        List<String> listRequests = _server.getRequests( );
+        assertTrue( listRequests.indexOf( "DELETE /forms" ) < listRequests.indexOf( "PUT /forms" ) );
+    }
+}